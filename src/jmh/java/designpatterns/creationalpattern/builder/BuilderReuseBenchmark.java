@@ -0,0 +1,82 @@
+package designpatterns.creationalpattern.builder;
+
+import designpatterns.creationalpattern.builder.WithBuilder.Computer;
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.CompilerControl;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk generation with a new builder per object versus the reusable per-thread builders.
+ * <p>
+ * Run it with the GC profiler (the default in the `benchmarks` profile) and compare `gc.alloc.rate.norm`. Each operation
+ * builds one object. The `new...` variants pay for the builder as well as the object, the `reusable...` variants only for
+ * the object. The builders are filled in a method that is not inlined, as in a batch job that sets the fields in a
+ * separate mapping step; otherwise escape analysis could remove the builder allocation in this tiny loop and hide the
+ * difference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BuilderReuseBenchmark {
+    private static final int BATCH = 1_000;
+    private static final String[] MAIN_COURSES = {"Veggie Patty", "Chicken Patty", "Fish Fillet", "Tacos"};
+    private static final String[] DRINKS = {"Juice", "Coke", "Sprite", "Water"};
+    private static final String[] DISKS = {"256 GB", "512 GB", "1 TB", "2 TB"};
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void newMealBuilders(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(fill(new Meal.MealBuilder(MAIN_COURSES[i & 3]), i).build());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void reusableMealBuilder(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(fill(Meal.MealBuilder.reusable(MAIN_COURSES[i & 3]), i).build());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void newComputerBuilders(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(fill(new Computer.ComputerBuilder(DISKS[i & 3], "16 GB"), i).build());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void reusableComputerBuilder(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(fill(Computer.ComputerBuilder.reusable(DISKS[i & 3], "16 GB"), i).build());
+        }
+    }
+
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static Meal.MealBuilder fill(Meal.MealBuilder builder, int i) {
+        return builder.withDrink(DRINKS[i & 3]).withDessert((i & 1) == 0 ? "Ice Cream" : null);
+    }
+
+    @CompilerControl(CompilerControl.Mode.DONT_INLINE)
+    private static Computer.ComputerBuilder fill(Computer.ComputerBuilder builder, int i) {
+        return (i & 1) == 0 ? builder.enableGraphicsCard("RTX 4090") : builder.enableBluetooth("Intel AX210");
+    }
+}
@@ -0,0 +1,64 @@
+package designpatterns.creationalpattern.prototype;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Indexed lookups in a big `BookShop`: `findById` and `findByNamePrefix` with random keys, so most lookups miss the CPU caches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Thread)
+public class BookLookupBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int books;
+
+    private BookShop shop;
+    private String[] prefixes;
+    private int next;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        shop = new BookShop();
+        for (int i = 0; i < books; i++) {
+            Book book = new Book();
+            book.setId(i);
+            book.setName("Book" + i);
+            shop.getBooks().add(book);
+        }
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = "Book" + random.nextInt(books);
+        }
+        // Builds the indexes outside the measurement.
+        shop.findById(0);
+    }
+
+    @Benchmark
+    public Book findById() {
+        return shop.findById(random.nextInt(books));
+    }
+
+    @Benchmark
+    public List<Book> findByNamePrefix() {
+        return shop.findByNamePrefix(prefixes[next++ & (prefixes.length - 1)], 10);
+    }
+}
@@ -0,0 +1,83 @@
+package designpatterns.creationalpattern.prototype;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning a catalog stored as `Book` objects versus the columnar `CompactBookList`.
+ * Each benchmark looks for the last book, so the whole catalog is scanned.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BookStorageBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int books;
+
+    private List<Book> objects;
+    private CompactBookList compact;
+    private int lastId;
+    private String lastName;
+
+    @Setup
+    public void setUp() {
+        objects = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            Book book = new Book();
+            book.setId(i);
+            book.setName("Book" + i);
+            objects.add(book);
+        }
+        compact = new CompactBookList(objects);
+        compact.trimToSize();
+        lastId = books - 1;
+        lastName = "Book" + lastId;
+    }
+
+    @Benchmark
+    public int objectsFindById() {
+        for (int i = 0; i < objects.size(); i++) {
+            if (objects.get(i).getId() == lastId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public int compactFindById() {
+        return compact.indexOfId(lastId);
+    }
+
+    @Benchmark
+    public int objectsFindByName() {
+        for (int i = 0; i < objects.size(); i++) {
+            if (lastName.equals(objects.get(i).getName())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public int compactFindByName() {
+        return compact.indexOfName(lastName);
+    }
+}
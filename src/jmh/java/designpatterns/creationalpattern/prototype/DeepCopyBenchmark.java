@@ -0,0 +1,80 @@
+package designpatterns.creationalpattern.prototype;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deep-copying a `BookShop` three ways:
+ * <ul>
+ *     <li>`handWritten`: a copy method written for these two classes, the lower bound.</li>
+ *     <li>`deepCopier`: `BookShop.deepClone()`, which uses the generated `DeepCopier`.</li>
+ *     <li>`serialization`: a Java serialization round trip, the classic generic way to deep-copy.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeepCopyBenchmark {
+
+    @Param({"10", "10000"})
+    public int books;
+
+    private BookShop shop;
+
+    @Setup
+    public void setUp() {
+        shop = new BookShop();
+        shop.setShopName("RM Books");
+        for (int i = 0; i < books; i++) {
+            Book book = new Book();
+            book.setId(i);
+            book.setName("Book" + i);
+            shop.getBooks().add(book);
+        }
+    }
+
+    @Benchmark
+    public BookShop handWritten() {
+        BookShop copy = new BookShop();
+        copy.setShopName(shop.getShopName());
+        for (Book book : shop.getBooks()) {
+            copy.getBooks().add(book.clone());
+        }
+        return copy;
+    }
+
+    @Benchmark
+    public BookShop deepCopier() {
+        return shop.deepClone();
+    }
+
+    @Benchmark
+    public BookShop serialization() throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(shop);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (BookShop) in.readObject();
+        }
+    }
+}
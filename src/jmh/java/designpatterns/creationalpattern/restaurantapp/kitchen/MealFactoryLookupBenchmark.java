@@ -0,0 +1,49 @@
+package designpatterns.creationalpattern.restaurantapp.kitchen;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-order overhead of `Restaurant.serveMeal()` before the dishes are cooked: getting the factory, naming the
+ * kitchen and creating the dishes. Printing and `prepare()` are left out because they are identical in both paths.
+ * <ul>
+ *     <li>`perCallFactory` - the old path: a new factory per order and a name derived with
+ *     `getClass().getSimpleName().replace(...)` every time.</li>
+ *     <li>`registryFactory` - the `CuisineRegistry` path used by `ItalianRestaurant` now: one shared factory and a precomputed name.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MealFactoryLookupBenchmark {
+    private final Restaurant restaurant = new ItalianRestaurant();
+
+    @Benchmark
+    public void perCallFactory(Blackhole blackhole) {
+        MealFactory factory = new ItalianMealFactory();
+        blackhole.consume(factory.getClass().getSimpleName().replace("MealFactory", ""));
+        blackhole.consume(factory.createMainCourse());
+        blackhole.consume(factory.createDessert());
+    }
+
+    @Benchmark
+    public void registryFactory(Blackhole blackhole) {
+        MealFactory factory = restaurant.getMealFactory();
+        blackhole.consume(restaurant.getCuisineName());
+        blackhole.consume(factory.createMainCourse());
+        blackhole.consume(factory.createDessert());
+    }
+}
@@ -0,0 +1,77 @@
+package designpatterns.creationalpattern.restaurantapp.service;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of `MenuService.getMeal` with and without flyweight mode.
+ * <p>
+ * Run it with the GC profiler (the default in the `benchmarks` profile) and compare `gc.alloc.rate.norm`:
+ * the flyweight lookup should report 0 B/op, while the cloning lookup pays for one `Meal` per call. `MenuServiceAllocationTest`
+ * asserts the 0 B/op in the regular test run.
+ * `customizedOrder` shows the copy-on-modify path that callers use when they change the shared meal.
+ * `ignoreCaseOrder` and `resolvedOrder` compare the case-insensitive lookup and the `MealId` handle with the plain one;
+ * `unknownMeal` is the miss path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MenuLookupBenchmark {
+
+    @Param({"false", "true"})
+    public boolean flyweight;
+
+    private MenuService menu;
+    private String mealName;
+    private String mixedCaseName;
+    private MealId mealId;
+
+    @Setup
+    public void setUp() {
+        menu = MenuService.getInstance();
+        menu.setFlyweightMode(flyweight);
+        mealName = "CHICKEN_BURGER";
+        mixedCaseName = "Chicken_Burger";
+        mealId = menu.resolve(mealName);
+    }
+
+    @Benchmark
+    public Meal unmodifiedOrder() {
+        return menu.getMeal(mealName);
+    }
+
+    @Benchmark
+    public Meal customizedOrder() {
+        return menu.getMeal(mealName).withDrink("Milkshake");
+    }
+
+    @Benchmark
+    public Meal ignoreCaseOrder() {
+        return menu.getMealIgnoreCase(mixedCaseName);
+    }
+
+    @Benchmark
+    public Meal resolvedOrder() {
+        return menu.getMeal(mealId);
+    }
+
+    @Benchmark
+    public Meal unknownMeal() {
+        return menu.getMeal("TOFU_BOWL");
+    }
+}
@@ -0,0 +1,98 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding one {@code Meal} per message with the {@link MealBinaryFormat} codecs versus the default Jackson
+ * JSON codecs that WebFlux would use otherwise.
+ * <p>
+ * Run it with the GC profiler (the default in the `benchmarks` profile) and compare the time per message and
+ * `gc.alloc.rate.norm`. Jackson cannot create a {@code Meal} (it has no constructor for it), so the JSON decoding side reads
+ * into a {@link MealJson} and builds the meal from it, as a JSON endpoint would have to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MealCodecBenchmark {
+    private static final ResolvableType MEAL_TYPE = ResolvableType.forClass(Meal.class);
+    private static final ResolvableType MEAL_JSON_TYPE = ResolvableType.forClass(MealJson.class);
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    private final MealEncoder binaryEncoder = new MealEncoder();
+    private final MealDecoder binaryDecoder = new MealDecoder();
+    private final Jackson2JsonEncoder jsonEncoder = new Jackson2JsonEncoder();
+    private final Jackson2JsonDecoder jsonDecoder = new Jackson2JsonDecoder();
+
+    private Meal meal;
+    private byte[] binaryMessage;
+    private byte[] jsonMessage;
+
+    public record MealJson(String mainCourse, String sideDish, String drink, String dessert) {
+        Meal toMeal() {
+            return Meal.MealBuilder.reusable(mainCourse).withSideDish(sideDish).withDrink(drink).withDessert(dessert).build();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        meal = new Meal.MealBuilder("Chicken Patty").withSideDish("Fries").withDrink("Coke").withDessert("Ice Cream").build();
+        binaryMessage = toBytes(binaryEncode());
+        jsonMessage = toBytes(jsonEncode());
+    }
+
+    @Benchmark
+    public DataBuffer binaryEncode() {
+        return release(binaryEncoder.encodeValue(meal, bufferFactory, MEAL_TYPE, MealBinaryFormat.MEDIA_TYPE, null));
+    }
+
+    @Benchmark
+    public DataBuffer jsonEncode() {
+        return release(jsonEncoder.encodeValue(meal, bufferFactory, MEAL_TYPE, MediaType.APPLICATION_JSON, null));
+    }
+
+    @Benchmark
+    public Meal binaryDecode() {
+        return binaryDecoder.decode(bufferFactory.wrap(binaryMessage), MEAL_TYPE, MealBinaryFormat.MEDIA_TYPE, null);
+    }
+
+    @Benchmark
+    public Meal jsonDecode() {
+        MealJson json = (MealJson) jsonDecoder.decode(bufferFactory.wrap(jsonMessage), MEAL_JSON_TYPE,
+                MediaType.APPLICATION_JSON, null);
+        return json.toMeal();
+    }
+
+    private static DataBuffer release(DataBuffer buffer) {
+        // A no-op for the heap buffers of the default factory; keeps the benchmark correct with a pooled factory.
+        DataBufferUtils.release(buffer);
+        return buffer;
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,62 @@
+package designpatterns.creationalpattern.singleton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state throughput of `getInstance()` once the singleton has been created.
+ * The three strategies are measured side by side:
+ * <ul>
+ *     <li>`holder` - `DBInstance`, the initialization-on-demand holder idiom.</li>
+ *     <li>`doubleChecked` - `DBInstance1`, double-checked locking on a `volatile` field.</li>
+ *     <li>`enumConstant` - `DBInstance2`, the single-element enum.</li>
+ * </ul>
+ * The benchmark methods live in this abstract class; each nested subclass only fixes the number of
+ * concurrent threads, so the results read as "strategy x thread count".
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public abstract class SingletonAccessBenchmark {
+
+    @Benchmark
+    public DBInstance holder() {
+        return DBInstance.getInstance();
+    }
+
+    @Benchmark
+    public DBInstance1 doubleChecked() {
+        return DBInstance1.getInstance();
+    }
+
+    @Benchmark
+    public DBInstance2 enumConstant() {
+        return DBInstance2.getInstance();
+    }
+
+    @Threads(1)
+    public static class OneThread extends SingletonAccessBenchmark {
+    }
+
+    @Threads(4)
+    public static class FourThreads extends SingletonAccessBenchmark {
+    }
+
+    @Threads(16)
+    public static class SixteenThreads extends SingletonAccessBenchmark {
+    }
+
+    @Threads(64)
+    public static class SixtyFourThreads extends SingletonAccessBenchmark {
+    }
+}
@@ -0,0 +1,40 @@
+package designpatterns.creationalpattern.singleton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the very first `getInstance()` call, i.e. the cost of lazy initialization itself.
+ * <p>
+ * A singleton can only be initialized once per JVM, so every measurement runs in a fresh fork with
+ * no warmup and a single invocation. The reported score is the distribution across forks.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(30)
+public class SingletonFirstTouchBenchmark {
+
+    @Benchmark
+    public DBInstance holder() {
+        return DBInstance.getInstance();
+    }
+
+    @Benchmark
+    public DBInstance1 doubleChecked() {
+        return DBInstance1.getInstance();
+    }
+
+    @Benchmark
+    public DBInstance2 enumConstant() {
+        return DBInstance2.getInstance();
+    }
+}
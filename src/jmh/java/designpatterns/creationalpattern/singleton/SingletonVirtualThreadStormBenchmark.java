@@ -0,0 +1,73 @@
+package designpatterns.creationalpattern.singleton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Time to release a "storm" of virtual threads that all call `getInstance()` at the same moment.
+ * <p>
+ * Every virtual thread waits on a shared start gate, so all of them hit the accessor together.
+ * This shows whether a strategy pins carrier threads or serializes callers (for example through
+ * the `synchronized` block of double-checked locking) when thousands of callers arrive at once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingletonVirtualThreadStormBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int virtualThreads;
+
+    @Benchmark
+    public long holder() throws InterruptedException {
+        return storm(DBInstance::getInstance);
+    }
+
+    @Benchmark
+    public long doubleChecked() throws InterruptedException {
+        return storm(DBInstance1::getInstance);
+    }
+
+    @Benchmark
+    public long enumConstant() throws InterruptedException {
+        return storm(DBInstance2::getInstance);
+    }
+
+    private long storm(Supplier<?> accessor) throws InterruptedException {
+        CountDownLatch startGate = new CountDownLatch(1);
+        LongAdder hashes = new LongAdder();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < virtualThreads; i++) {
+                executor.execute(() -> {
+                    try {
+                        startGate.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    hashes.add(System.identityHashCode(accessor.get()));
+                });
+            }
+            startGate.countDown();
+        }
+        return hashes.sum();
+    }
+}
@@ -0,0 +1,135 @@
+package designpatterns.creationalpattern.abstractfactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The position history of one shipment, kept in a ring buffer of primitive arrays.
+ *
+ * <h2>Layout</h2>
+ * Events are stored column by column: one {@code long[]} for timestamps and one {@code double[]} each for latitude and
+ * longitude. The arrays are allocated once; when they are full, the oldest event is overwritten.
+ *
+ * <h2>Concurrency</h2>
+ * There must be a single writer per track (usually the thread that receives the shipment's position updates), but any
+ * number of threads may query it at the same time. Neither side takes a lock:
+ * <ul>
+ *     <li>The writer announces which sequence number it is about to write ({@code claimed}), fills the slot, and then
+ *     publishes the new event count ({@code published}) with release semantics.</li>
+ *     <li>A reader only looks at events below {@code published}. After reading a slot it checks {@code claimed} again;
+ *     if the writer has meanwhile wrapped around onto that slot, the event is skipped instead of returning a torn value.</li>
+ * </ul>
+ * Timestamps must be appended in non-decreasing order, which allows queries to binary-search the start of a time range.
+ */
+public final class ShipmentTrack {
+    private static final VarHandle CLAIMED;
+    private static final VarHandle PUBLISHED;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            CLAIMED = lookup.findVarHandle(ShipmentTrack.class, "claimed", long.class);
+            PUBLISHED = lookup.findVarHandle(ShipmentTrack.class, "published", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long shipmentId;
+    private final int capacity;
+    private final int mask;
+    private final long[] timestamps;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    // Number of events the writer has started to write, and number of events that are complete and visible to readers.
+    private long claimed;
+    private long published;
+    // Only touched by the writer.
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    ShipmentTrack(long shipmentId, int capacity) {
+        this.shipmentId = shipmentId;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.timestamps = new long[capacity];
+        this.latitudes = new double[capacity];
+        this.longitudes = new double[capacity];
+    }
+
+    public long getShipmentId() {
+        return shipmentId;
+    }
+
+    /**
+     * Records a position. Must only be called by the single writer thread of this track.
+     *
+     * @throws IllegalArgumentException if the timestamp is older than the previous event's.
+     */
+    public void append(long timestamp, double latitude, double longitude) {
+        if (timestamp < lastTimestamp) {
+            throw new IllegalArgumentException("Event at " + timestamp + " is older than the last event at " + lastTimestamp);
+        }
+        long sequence = published;
+        CLAIMED.setOpaque(this, sequence + 1);
+        VarHandle.storeStoreFence();
+        int slot = (int) (sequence & mask);
+        timestamps[slot] = timestamp;
+        latitudes[slot] = latitude;
+        longitudes[slot] = longitude;
+        PUBLISHED.setRelease(this, sequence + 1);
+        lastTimestamp = timestamp;
+    }
+
+    /**
+     * Visits the retained events whose timestamp lies in {@code [fromTimestamp, toTimestamp]}, oldest first.
+     * Events overwritten by the writer while the query runs are skipped.
+     *
+     * @return The number of events visited.
+     */
+    public int query(long fromTimestamp, long toTimestamp, TrackingEventVisitor visitor) {
+        long end = (long) PUBLISHED.getAcquire(this);
+        long sequence = firstAtOrAfter(Math.max(0, end - capacity), end, fromTimestamp);
+        int visited = 0;
+        for (; sequence < end; sequence++) {
+            int slot = (int) (sequence & mask);
+            long timestamp = timestamps[slot];
+            double latitude = latitudes[slot];
+            double longitude = longitudes[slot];
+            VarHandle.loadLoadFence();
+            if ((long) CLAIMED.getOpaque(this) - sequence > capacity) {
+                // The writer has wrapped around onto this slot while we were reading it.
+                continue;
+            }
+            if (timestamp > toTimestamp) {
+                break;
+            }
+            visitor.visit(timestamp, latitude, longitude);
+            visited++;
+        }
+        return visited;
+    }
+
+    /**
+     * @return The number of events currently retained (at most the capacity).
+     */
+    public int size() {
+        return (int) Math.min((long) PUBLISHED.getAcquire(this), capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Binary search over sequence numbers [low, high) for the first event with a timestamp >= the given one.
+    private long firstAtOrAfter(long low, long high, long timestamp) {
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (timestamps[(int) (middle & mask)] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -6,4 +6,12 @@ package designpatterns.creationalpattern.abstractfactory;
  */
 public interface Tracking {
     void track();
+
+    /**
+     * Records a position event for a shipment in its {@link ShipmentTrack} (see {@link TrackingEventStore}).
+     * The event is stored in primitive arrays, so recording allocates nothing.
+     */
+    default void track(ShipmentTrack shipment, long timestamp, double latitude, double longitude) {
+        shipment.append(timestamp, latitude, longitude);
+    }
 }
@@ -0,0 +1,57 @@
+package designpatterns.creationalpattern.abstractfactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-memory store of position events for many shipments.
+ * <p>
+ * Every shipment gets its own {@link ShipmentTrack}: a preallocated ring buffer of primitive arrays that keeps the
+ * latest {@code eventsPerShipment} events. Recording an event writes three array slots and allocates nothing, so a long
+ * event history does not turn into millions of small objects for the garbage collector to trace.
+ * <p>
+ * Look up the track of a shipment once with {@link #track(long)} and keep it; appending to and querying the track is then
+ * free of map lookups and boxing.
+ */
+public class TrackingEventStore {
+    private final int eventsPerShipment;
+    private final Map<Long, ShipmentTrack> tracks = new ConcurrentHashMap<>();
+
+    /**
+     * @param eventsPerShipment How many of the latest events to keep per shipment. Rounded up to a power of two.
+     */
+    public TrackingEventStore(int eventsPerShipment) {
+        if (eventsPerShipment <= 0 || eventsPerShipment > (1 << 30)) {
+            throw new IllegalArgumentException("Events per shipment must be between 1 and 2^30: " + eventsPerShipment);
+        }
+        this.eventsPerShipment = eventsPerShipment == 1 ? 1 : Integer.highestOneBit(eventsPerShipment - 1) << 1;
+    }
+
+    /**
+     * Returns the track of a shipment, creating an empty one on first use.
+     */
+    public ShipmentTrack track(long shipmentId) {
+        return tracks.computeIfAbsent(shipmentId, id -> new ShipmentTrack(id, eventsPerShipment));
+    }
+
+    /**
+     * @return The track of a shipment, or `null` if nothing was ever recorded for it.
+     */
+    public ShipmentTrack find(long shipmentId) {
+        return tracks.get(shipmentId);
+    }
+
+    /**
+     * Visits the events of one shipment whose timestamp lies in {@code [fromTimestamp, toTimestamp]}.
+     *
+     * @return The number of events visited.
+     */
+    public int query(long shipmentId, long fromTimestamp, long toTimestamp, TrackingEventVisitor visitor) {
+        ShipmentTrack track = tracks.get(shipmentId);
+        return track == null ? 0 : track.query(fromTimestamp, toTimestamp, visitor);
+    }
+
+    public int getShipmentCount() {
+        return tracks.size();
+    }
+}
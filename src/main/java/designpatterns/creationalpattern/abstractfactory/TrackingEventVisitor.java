@@ -0,0 +1,10 @@
+package designpatterns.creationalpattern.abstractfactory;
+
+/**
+ * Receives tracking events from a {@link ShipmentTrack} query.
+ * The values are passed as primitives, so reading a track never boxes anything.
+ */
+@FunctionalInterface
+public interface TrackingEventVisitor {
+    void visit(long timestamp, double latitude, double longitude);
+}
@@ -26,6 +26,12 @@ package designpatterns.creationalpattern.builder.WithBuilder;
  *     <li><b>The Static Nested Builder (`ComputerBuilder`):</b> This class contains the same fields as the outer class. It has a constructor for the required fields and methods for setting optional fields. These methods return the builder itself to allow for a "fluent" or "chained" API.</li>
  *     <li><b>The `build()` method:</b> The final method called on the builder, which creates and returns the final `Computer` object.</li>
  * </ol>
+ *
+ * <h2>Reusing the Builder</h2>
+ * `build()` copies the values into the new `Computer`, so a builder can be reused. `reset(hdd, ram)` starts the next object and
+ * clears the optional parts. When millions of configurations are generated in a loop, `ComputerBuilder.reusable(hdd, ram)`
+ * returns a builder kept per thread, so no builder is allocated per `Computer`. Such a builder must not be stored, since the
+ * next `reusable` call on the same thread resets it.
  */
 public class Computer {
     // Fields of the final Computer object
@@ -52,10 +58,12 @@ public class Computer {
     /**
      * The static nested Builder class.
      */
-    public static class ComputerBuilder {
+    public static final class ComputerBuilder {
+        private static final ThreadLocal<ComputerBuilder> REUSABLE = ThreadLocal.withInitial(() -> new ComputerBuilder(null, null));
+
         // Required parameters
-        private final String HDD;
-        private final String RAM;
+        private String HDD;
+        private String RAM;
 
         // Optional parameters
         private String graphicsCard;
@@ -67,8 +75,31 @@ public class Computer {
          * @param ram The RAM size.
          */
         public ComputerBuilder(String hdd, String ram) {
+            reset(hdd, ram);
+        }
+
+        /**
+         * Returns the builder of the current thread, reset to the given required fields.
+         * @param hdd The hard disk drive size.
+         * @param ram The RAM size.
+         * @return The reset builder; do not keep it.
+         */
+        public static ComputerBuilder reusable(String hdd, String ram) {
+            return REUSABLE.get().reset(hdd, ram);
+        }
+
+        /**
+         * Starts a new computer with this builder: sets the required fields and clears the optional ones.
+         * @param hdd The hard disk drive size.
+         * @param ram The RAM size.
+         * @return The builder instance for method chaining.
+         */
+        public ComputerBuilder reset(String hdd, String ram) {
             this.HDD = hdd;
             this.RAM = ram;
+            this.graphicsCard = null;
+            this.bluetooth = null;
+            return this;
         }
 
         /**
@@ -120,5 +151,11 @@ class TestBuilderPattern {
                 .build(); // Optional parameters are not set
 
         System.out.println("Basic Computer Config: " + basicComputer);
+
+        // Generating many configurations with the reusable builder of this thread.
+        for (int i = 1; i <= 3; i++) {
+            Computer office = Computer.ComputerBuilder.reusable(i * 256 + " GB", "8 GB").build();
+            System.out.println("Office Computer Config: " + office);
+        }
     }
 }
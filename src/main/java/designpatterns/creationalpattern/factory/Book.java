@@ -5,7 +5,7 @@ import lombok.Setter;
 
 @Getter
 @Setter
-public class Book {
+public class Book implements Cloneable {
     private int id;
     private String name;
 
@@ -16,4 +16,12 @@ public class Book {
                 ", name='" + name + '\'' +
                 '}';
     }
+
+    @Override
+    public Book clone() {
+        Book clone = new Book();
+        clone.id = id;
+        clone.name = name;
+        return clone;
+    }
 }
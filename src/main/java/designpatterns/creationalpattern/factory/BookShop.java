@@ -1,10 +1,11 @@
 package designpatterns.creationalpattern.factory;
 
 
+import designpatterns.creationalpattern.prototype.DeepCopier;
+import designpatterns.creationalpattern.prototype.PersistentVector;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.ArrayList;
 import java.util.List;
 
 
@@ -13,7 +14,7 @@ import java.util.List;
 public class BookShop implements Cloneable{
 
     private String shopName;
-    private List<Book> books = new ArrayList<>();
+    private List<Book> books = new PersistentVector<>();
 
     public void loadData(){
         for(int i=0;i<10;i++){
@@ -32,12 +33,16 @@ public class BookShop implements Cloneable{
                 '}';
     }
 
+    // The books are a PersistentVector, so the clone shares their structure and takes constant time.
     @Override
     public BookShop clone() {
         BookShop clone = new BookShop();
-        for (Book b : getBooks()){
-            clone.getBooks().add(b);
-        }
+        clone.books = books instanceof PersistentVector<Book> vector ? vector.snapshot() : new PersistentVector<>(books);
         return clone;
     }
+
+    // Copies every Book too (and the shop name), see DeepCopier.
+    public BookShop deepClone() {
+        return DeepCopier.copy(this);
+    }
 }
@@ -1,7 +1,28 @@
 package designpatterns.creationalpattern.factory;
 
+import java.util.List;
+import java.util.Locale;
+
 public interface Logistics {
     void deliver();
     void receive();
     void track();
+
+    /**
+     * Delivers a batch of shipments in one go. Implementations that can load many shipments onto one vehicle override this,
+     * so the fixed cost of a delivery is paid once per batch. By default every shipment is delivered on its own.
+     */
+    default void deliver(List<Shipment> shipments) {
+        for (int i = 0; i < shipments.size(); i++) {
+            deliver();
+        }
+    }
+
+    /**
+     * The name under which the `LogisticsFactory` offers this implementation, e.g. "road".
+     * By default it is the class name without the "Logistics" suffix, in lower case.
+     */
+    default String type() {
+        return getClass().getSimpleName().replace("Logistics", "").toLowerCase(Locale.ROOT);
+    }
 }
@@ -1,5 +1,14 @@
 package designpatterns.creationalpattern.factory;
 
+import designpatterns.creationalpattern.metrics.CreationMetrics;
+import io.micrometer.core.instrument.Counter;
+
+import java.util.Locale;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
 /**
  * This class demonstrates the Simple Factory pattern.
  * The Factory pattern is a creational design pattern that provides a way to create objects without exposing the creation logic to the client.
@@ -20,24 +29,63 @@ package designpatterns.creationalpattern.factory;
  * Based on this string, it decides whether to instantiate a `RoadLogistics` or a `SeaLogistics` object.
  * The client code (the `main` method in this case) doesn't need to know about the concrete classes (`RoadLogistics`, `SeaLogistics`).
  * It just asks the factory for a `Logistics` object of a certain type.
+ *
+ * <h2>A Registry Instead of an if/else Chain</h2>
+ * Instead of comparing the type against every known name, the factory keeps a registry from type to implementation:
+ * <ul>
+ *     <li><b>Discovery:</b> Implementations are found with {@link ServiceLoader}. Adding air or rail logistics means writing the class
+ *     and listing it in {@code META-INF/services/designpatterns.creationalpattern.factory.Logistics}; the factory itself does not change.
+ *     Implementations can also be added at runtime with {@link #register(Logistics)}.</li>
+ *     <li><b>One lookup:</b> The registry is ordered with {@link String#CASE_INSENSITIVE_ORDER}, like the `CuisineRegistry`, so a lookup in any case
+ *     is a single map lookup that compares the characters in place instead of building a lower-case copy of the requested type.</li>
+ *     <li><b>Shared instances:</b> `RoadLogistics` and `SeaLogistics` have no state, so the factory hands out the same instance every time
+ *     instead of creating garbage on every call. Registered implementations must therefore be thread-safe.</li>
+ * </ul>
  */
 public class LogisticsFactory {
+    private static final ConcurrentNavigableMap<String, Registration> REGISTRY = new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        for (Logistics logistics : ServiceLoader.load(Logistics.class)) {
+            register(logistics);
+        }
+    }
+
+    private record Registration(Logistics logistics, Counter created) {
+    }
+
     /**
      * Creates and returns a Logistics object based on the given type.
      * This is the factory method.
      *
-     * @param type The type of logistics to create ("road" or "sea").
-     * @return A concrete implementation of Logistics.
+     * @param type The type of logistics to create, e.g. "road" or "sea" (case-insensitive).
+     * @return The shared implementation of Logistics for that type.
      * @throws IllegalArgumentException if the type is unknown.
      */
     public static Logistics createLogistics(String type) {
-        if (type.equalsIgnoreCase("road")) {
-            return new RoadLogistics();
-        } else if (type.equalsIgnoreCase("sea")) {
-            return new SeaLogistics();
-        } else {
+        Registration registration = REGISTRY.get(type);
+        if (registration == null) {
             throw new IllegalArgumentException("Unknown logistics type: " + type);
         }
+        registration.created().increment();
+        return registration.logistics();
+    }
+
+    /**
+     * Registers a logistics implementation under its {@link Logistics#type()}, replacing any implementation of the same type.
+     * The instance is shared by all callers, so it must be stateless or thread-safe.
+     */
+    public static void register(Logistics logistics) {
+        // Lookups ignore case; the key is lower case for the metric and for types().
+        String type = logistics.type().toLowerCase(Locale.ROOT);
+        REGISTRY.put(type, new Registration(logistics, CreationMetrics.logisticsCounter(type)));
+    }
+
+    /**
+     * @return The registered types, in lower case.
+     */
+    public static Set<String> types() {
+        return Set.copyOf(REGISTRY.keySet());
     }
 
     public static void main(String[] args) {
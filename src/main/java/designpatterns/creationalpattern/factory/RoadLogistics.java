@@ -1,11 +1,18 @@
 package designpatterns.creationalpattern.factory;
 
+import java.util.List;
+
 public class RoadLogistics implements Logistics {
     @Override
     public void deliver() {
         System.out.println("Delivering by road");
     }
 
+    @Override
+    public void deliver(List<Shipment> shipments) {
+        System.out.println("Delivering " + shipments.size() + " shipments by road");
+    }
+
     @Override
     public void receive() {
         System.out.println("Receiving by road");
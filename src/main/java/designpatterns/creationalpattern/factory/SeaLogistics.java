@@ -1,11 +1,18 @@
 package designpatterns.creationalpattern.factory;
 
+import java.util.List;
+
 public class SeaLogistics implements Logistics {
     @Override
     public void deliver() {
         System.out.println("Delivering by sea");
     }
 
+    @Override
+    public void deliver(List<Shipment> shipments) {
+        System.out.println("Delivering " + shipments.size() + " shipments by sea");
+    }
+
     @Override
     public void receive() {
         System.out.println("Receiving by sea");
@@ -0,0 +1,10 @@
+package designpatterns.creationalpattern.factory;
+
+/**
+ * A shipment handed to the {@link ShipmentDispatcher}.
+ *
+ * @param id   Identifies the shipment, e.g. a tracking number.
+ * @param type The logistics type that carries it, e.g. "road" or "sea" (see {@link LogisticsFactory}).
+ */
+public record Shipment(String id, String type) {
+}
@@ -0,0 +1,212 @@
+package designpatterns.creationalpattern.factory;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts shipments asynchronously and delivers them in batches, instead of calling {@link Logistics#deliver()} once per shipment.
+ *
+ * <h2>How it works</h2>
+ * <ol>
+ *     <li>{@link #dispatch(Shipment)} resolves the shipment's logistics through the {@link LogisticsFactory}, puts it into a bounded
+ *     intake queue and returns a future right away. It never blocks: if the queue is full, the future fails with a
+ *     {@link RejectedExecutionException}.</li>
+ *     <li>A collector thread opens a time window when the first shipment arrives and gathers everything that arrives within it,
+ *     grouped by logistics type. A group that reaches {@code maxBatchSize} is sent off at once without waiting for the window to end.</li>
+ *     <li>Each batch runs through {@link Logistics#deliver(List)} on a bounded pool of delivery workers. When all workers are busy
+ *     and their queue is full, the collector delivers the batch itself, which slows down intake instead of piling up work.</li>
+ *     <li>When a batch is delivered, the futures of all its shipments complete; if delivery fails, they all fail with the same exception.</li>
+ * </ol>
+ * A shipment is either queued before {@link #close()} stops the collector (and then delivered) or its future fails with a
+ * {@link RejectedExecutionException}; no future is left pending.
+ */
+public class ShipmentDispatcher implements AutoCloseable {
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_MINUTES = 1;
+
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingShipment> intake;
+    private final ThreadPoolExecutor deliveryWorkers;
+    private final Thread collector;
+    private volatile boolean running = true;
+
+    /**
+     * @param window        How long the collector gathers shipments before delivering what it has.
+     * @param maxBatchSize  The most shipments of one type in a single delivery.
+     * @param workers       The number of threads that deliver batches.
+     * @param queueCapacity How many shipments may wait to be batched before {@link #dispatch(Shipment)} rejects new ones.
+     */
+    public ShipmentDispatcher(Duration window, int maxBatchSize, int workers, int queueCapacity) {
+        if (maxBatchSize <= 0 || workers <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Batch size, workers and queue capacity must be positive");
+        }
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.intake = new ArrayBlockingQueue<>(queueCapacity);
+        this.deliveryWorkers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 2),
+                Thread.ofPlatform().name("shipment-delivery-", 0).daemon().factory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.collector = Thread.ofPlatform().name("shipment-collector").daemon().start(this::collect);
+    }
+
+    /**
+     * Queues a shipment for batched delivery.
+     *
+     * @return A future that completes when the batch containing the shipment has been delivered.
+     */
+    public CompletableFuture<Void> dispatch(Shipment shipment) {
+        CompletableFuture<Void> delivered = new CompletableFuture<>();
+        if (!running) {
+            delivered.completeExceptionally(new RejectedExecutionException("Dispatcher is closed"));
+            return delivered;
+        }
+        Logistics logistics;
+        try {
+            logistics = LogisticsFactory.createLogistics(shipment.type());
+        } catch (IllegalArgumentException e) {
+            delivered.completeExceptionally(e);
+            return delivered;
+        }
+        PendingShipment pending = new PendingShipment(shipment, logistics, delivered);
+        if (!intake.offer(pending)) {
+            delivered.completeExceptionally(new RejectedExecutionException("Shipment queue is full"));
+        } else if (!running && intake.remove(pending)) {
+            // close() started after the check above and may already have drained the intake for the last time. Whoever
+            // takes the shipment out of the queue owns it: the collector delivers it, close() or this thread fails it.
+            delivered.completeExceptionally(new RejectedExecutionException("Dispatcher is closed"));
+        }
+        return delivered;
+    }
+
+    /**
+     * Reactive variant of {@link #dispatch(Shipment)}. The shipment is queued when the returned {@link Mono} is subscribed to.
+     */
+    public Mono<Void> dispatchReactive(Shipment shipment) {
+        return Mono.fromFuture(() -> dispatch(shipment));
+    }
+
+    /**
+     * Stops accepting shipments, delivers everything already queued and waits for the deliveries to finish. An interrupt
+     * does not cut the wait short; the thread's interrupt status is set again when this method returns.
+     *
+     * @throws IllegalStateException if the deliveries did not finish within a minute. Batches that had not started by then
+     *                               are not delivered; their futures fail with a {@link RejectedExecutionException}.
+     */
+    @Override
+    public void close() {
+        running = false;
+        boolean interrupted = false;
+        while (collector.isAlive()) {
+            try {
+                collector.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        // A shipment that slipped in while the collector was finishing is not delivered; fail it instead of leaving it pending.
+        PendingShipment late;
+        while ((late = intake.poll()) != null) {
+            late.delivered().completeExceptionally(new RejectedExecutionException("Dispatcher is closed"));
+        }
+        deliveryWorkers.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(CLOSE_TIMEOUT_MINUTES);
+        boolean terminated;
+        while (true) {
+            try {
+                terminated = deliveryWorkers.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (!terminated) {
+            RejectedExecutionException abandoned = new RejectedExecutionException("Dispatcher closed before the batch was delivered");
+            for (Runnable delivery : deliveryWorkers.shutdownNow()) {
+                ((Delivery) delivery).fail(abandoned);
+            }
+            throw new IllegalStateException("Deliveries did not finish within " + CLOSE_TIMEOUT_MINUTES + " minute");
+        }
+    }
+
+    private void collect() {
+        Map<Logistics, List<PendingShipment>> batches = new HashMap<>();
+        while (running || !intake.isEmpty()) {
+            try {
+                PendingShipment first = intake.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                add(batches, first);
+                long windowEnd = System.nanoTime() + windowNanos;
+                long remaining;
+                while ((remaining = windowEnd - System.nanoTime()) > 0) {
+                    PendingShipment next = intake.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    add(batches, next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            batches.values().forEach(this::deliver);
+            batches.clear();
+        }
+    }
+
+    private void add(Map<Logistics, List<PendingShipment>> batches, PendingShipment pending) {
+        List<PendingShipment> batch = batches.computeIfAbsent(pending.logistics(), logistics -> new ArrayList<>());
+        batch.add(pending);
+        if (batch.size() >= maxBatchSize) {
+            batches.remove(pending.logistics());
+            deliver(batch);
+        }
+    }
+
+    private void deliver(List<PendingShipment> batch) {
+        deliveryWorkers.execute(new Delivery(batch));
+    }
+
+    private record PendingShipment(Shipment shipment, Logistics logistics, CompletableFuture<Void> delivered) {
+    }
+
+    /**
+     * One batch on its way through the delivery workers. A named task rather than a lambda, so {@link #close()} can fail
+     * the batches it takes back from the pool.
+     */
+    private record Delivery(List<PendingShipment> batch) implements Runnable {
+        @Override
+        public void run() {
+            List<Shipment> shipments = new ArrayList<>(batch.size());
+            for (PendingShipment pending : batch) {
+                shipments.add(pending.shipment());
+            }
+            try {
+                batch.get(0).logistics().deliver(shipments);
+                batch.forEach(pending -> pending.delivered().complete(null));
+            } catch (RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        void fail(Exception e) {
+            batch.forEach(pending -> pending.delivered().completeExceptionally(e));
+        }
+    }
+}
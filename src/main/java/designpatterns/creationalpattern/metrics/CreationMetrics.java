@@ -0,0 +1,99 @@
+package designpatterns.creationalpattern.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The Micrometer meters for the object-creation hot paths: menu lookups and cloning, meal building, serving meals and
+ * creating logistics.
+ *
+ * <h2>Keeping it cheap</h2>
+ * Looking up a meter by name and tags on every call would cost a map lookup and an allocation for the tags. Instead, every
+ * meter with fixed tags is created once, here, and kept in a {@code static final} field. Meters whose tag is only known at
+ * runtime (the cuisine, the dish) are created once per cuisine or dish class by the {@code factory} methods below, and the
+ * caller keeps the result. The hot path then only calls {@code System.nanoTime()} and {@code Timer.record(long, TimeUnit)},
+ * which takes primitives and does not box.
+ *
+ * <h2>Where the numbers go</h2>
+ * The meters are registered in Micrometer's global registry. When the application runs under Spring Boot, the actuator
+ * registry is added to the global registry, so all meters appear under {@code /actuator/metrics}. Timers publish percentile
+ * histograms, so the monitoring backend can compute any percentile across instances.
+ */
+public final class CreationMetrics {
+    private static final MeterRegistry REGISTRY = Metrics.globalRegistry;
+
+    public static final Counter MENU_HITS = Counter.builder("menu.lookups")
+            .description("MenuService.getMeal calls")
+            .tag("result", "hit")
+            .register(REGISTRY);
+    public static final Counter MENU_MISSES = Counter.builder("menu.lookups")
+            .description("MenuService.getMeal calls")
+            .tag("result", "miss")
+            .register(REGISTRY);
+    public static final Timer MEAL_CLONE = timer("meal.clone", "Time to clone a meal prototype in MenuService.getMeal");
+    public static final Timer MEAL_BUILD = timer("meal.build", "Time spent in Meal.MealBuilder.build");
+
+    private CreationMetrics() {
+    }
+
+    /**
+     * Creates the timer for {@code Restaurant.serveMeal} of one cuisine. Call it once per cuisine and keep the result.
+     */
+    public static Timer serveTimer(String cuisine) {
+        return Timer.builder("restaurant.serve")
+                .description("Time to serve one meal")
+                .tag("cuisine", cuisine)
+                .publishPercentileHistogram()
+                .register(REGISTRY);
+    }
+
+    /**
+     * Creates the timer for preparing one kind of dish. Call it once per dish class and keep the result.
+     */
+    public static Timer dishTimer(Class<?> dish) {
+        return Timer.builder("restaurant.dish.prepare")
+                .description("Time to prepare one dish")
+                .tag("dish", dish.getSimpleName())
+                .publishPercentileHistogram()
+                .register(REGISTRY);
+    }
+
+    /**
+     * Creates the counter for logistics objects of one type handed out by the factory. Call it once per type and keep the result.
+     */
+    public static Counter logisticsCounter(String type) {
+        return Counter.builder("logistics.created")
+                .description("Logistics objects handed out by LogisticsFactory.createLogistics")
+                .tag("type", type)
+                .register(REGISTRY);
+    }
+
+    /**
+     * Remembers the dish timer for the dish class seen last. A restaurant's factory always returns the same dish class,
+     * so after the first meal this is a single reference comparison instead of a lookup.
+     */
+    public static final class DishTimerCache {
+        private record Entry(Class<?> dish, Timer timer) {
+        }
+
+        private volatile Entry entry;
+
+        public Timer forDish(Class<?> dish) {
+            Entry current = entry;
+            if (current == null || current.dish() != dish) {
+                current = new Entry(dish, dishTimer(dish));
+                entry = current;
+            }
+            return current.timer();
+        }
+    }
+
+    private static Timer timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(REGISTRY);
+    }
+}
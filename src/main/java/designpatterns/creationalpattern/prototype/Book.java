@@ -3,9 +3,15 @@ package designpatterns.creationalpattern.prototype;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.Serial;
+import java.io.Serializable;
+
 @Getter
 @Setter
-public class Book {
+public class Book implements Cloneable, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     private int id;
     private String name;
 
@@ -16,4 +22,12 @@ public class Book {
                 ", name='" + name + '\'' +
                 '}';
     }
+
+    @Override
+    public Book clone() {
+        Book clone = new Book();
+        clone.id = id;
+        clone.name = name;
+        return clone;
+    }
 }
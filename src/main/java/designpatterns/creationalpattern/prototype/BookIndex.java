@@ -0,0 +1,460 @@
+package designpatterns.creationalpattern.prototype;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Lookup structures for the books of a {@link BookShop}: an id index and a name prefix index.
+ * Both store where the books are in the shop's list (see "Removal"), never {@code Book} objects, so they work the same for a
+ * {@link PersistentVector} and for a {@link CompactBookList} and consist only of primitive arrays.
+ *
+ * <h2>Id index</h2>
+ * An open-addressing hash table from id to position with linear probing: parallel {@code int} arrays, no boxing and
+ * no entry objects. A lookup usually touches one or two neighbouring slots. Removal shifts the following entries back
+ * instead of leaving tombstones. If several books share an id, the index points to the first of them and counts the others.
+ *
+ * <h2>Name index</h2>
+ * A character trie stored in parallel arrays: node {@code n} has the character {@code nodeChars[n]}, its first child
+ * {@code firstChild[n]} and its next sibling {@code nextSibling[n]}. The positions of the books whose name ends at a node
+ * form a linked list of entries. A prefix query walks down the trie once and then collects the positions below that node.
+ * Nodes whose books were removed are kept; they are dropped the next time the index is rebuilt.
+ *
+ * <h2>Removal</h2>
+ * Removing a book moves every later book up by one position. Instead of rewriting the positions stored in the index, both
+ * indexes store each book's <i>ordinal</i>, the position it was appended at, and a Fenwick tree over the ordinals counts
+ * the removed ones: a book's position is its ordinal minus the removed ordinals before it. Removal is thus O(log n). Until
+ * the first removal, the ordinal is the position and a lookup costs nothing extra; afterwards turning an ordinal into a
+ * position is O(log n). Once half of the ordinals are removed, the index renumbers everything in one pass and drops the
+ * tree, so deleting in bulk is O(n log n) overall and lookups become O(1) again.
+ * <p>
+ * Removing a book whose id is shared with a later book cannot be done incrementally (the index would have to find the
+ * next book with that id); {@link #removed(int, int, String)} reports that and the shop rebuilds the index.
+ *
+ * <h2>Copies</h2>
+ * A cloned shop shares its index with the original. {@link #writable()} copies the arrays before the first change
+ * (copy-on-write), which is much cheaper than rebuilding the index.
+ */
+final class BookIndex {
+    private static final int MIN_ID_CAPACITY = 16;
+    private static final int ROOT = 0;
+    // Value of a "next" or "first" link that points nowhere.
+    private static final int NONE = -1;
+
+    // Id index; idPositions holds ordinal + 1, so that 0 marks an empty slot. idCounts is the number of books with the id.
+    private int[] idKeys;
+    private int[] idPositions;
+    private int[] idCounts;
+    private int idCount;
+
+    // Name trie.
+    private char[] nodeChars;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] firstEntry;
+    private int nodeCount;
+    private int[] entryPositions;
+    private int[] entryNext;
+    private int entryCount;
+    private int freeEntries = NONE;
+
+    // Ordinal of the next book appended.
+    private int nextOrdinal;
+    // Fenwick tree (1-based, power-of-two capacity) counting removed ordinals; null while nothing has been removed.
+    private int[] removedTree;
+    private int removedCount;
+
+    private boolean shared;
+
+    private BookIndex(int expectedBooks) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_ID_CAPACITY, expectedBooks * 2 - 1)) << 1;
+        idKeys = new int[capacity];
+        idPositions = new int[capacity];
+        idCounts = new int[capacity];
+        int nodes = Math.max(16, expectedBooks * 2);
+        nodeChars = new char[nodes];
+        firstChild = new int[nodes];
+        nextSibling = new int[nodes];
+        firstEntry = new int[nodes];
+        entryPositions = new int[Math.max(16, expectedBooks)];
+        entryNext = new int[entryPositions.length];
+        newNode('\0');
+    }
+
+    // For BookShop.deepClone(): DeepCopier creates an empty index this way and then copies every field into it.
+    private BookIndex() {
+        this(0);
+    }
+
+    private BookIndex(BookIndex source) {
+        idKeys = source.idKeys.clone();
+        idPositions = source.idPositions.clone();
+        idCounts = source.idCounts.clone();
+        idCount = source.idCount;
+        nodeChars = Arrays.copyOf(source.nodeChars, source.nodeCount);
+        firstChild = Arrays.copyOf(source.firstChild, source.nodeCount);
+        nextSibling = Arrays.copyOf(source.nextSibling, source.nodeCount);
+        firstEntry = Arrays.copyOf(source.firstEntry, source.nodeCount);
+        nodeCount = source.nodeCount;
+        entryPositions = Arrays.copyOf(source.entryPositions, source.entryCount);
+        entryNext = Arrays.copyOf(source.entryNext, source.entryCount);
+        entryCount = source.entryCount;
+        freeEntries = source.freeEntries;
+        nextOrdinal = source.nextOrdinal;
+        removedTree = source.removedTree == null ? null : source.removedTree.clone();
+        removedCount = source.removedCount;
+    }
+
+    static BookIndex build(List<Book> books) {
+        BookIndex index = new BookIndex(books.size());
+        if (books instanceof CompactBookList compact) {
+            // Avoids creating a Book view per book.
+            for (int i = 0; i < compact.size(); i++) {
+                index.added(compact.idAt(i), compact.nameAt(i));
+            }
+        } else {
+            for (int i = 0; i < books.size(); i++) {
+                Book book = books.get(i);
+                index.added(book.getId(), book.getName());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Marks this index as used by more than one shop.
+     */
+    BookIndex share() {
+        shared = true;
+        return this;
+    }
+
+    /**
+     * Returns an index that may be changed: this one, or a private copy if this one is shared.
+     */
+    BookIndex writable() {
+        return shared ? new BookIndex(this) : this;
+    }
+
+    /**
+     * @return The position of the first book with the given id, or -1 if there is none.
+     */
+    int positionOf(int id) {
+        int mask = idKeys.length - 1;
+        for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+            int position = idPositions[slot];
+            if (position == 0) {
+                return -1;
+            }
+            if (idKeys[slot] == id) {
+                return positionOfOrdinal(position - 1);
+            }
+        }
+    }
+
+    /**
+     * Passes the positions of up to {@code limit} books whose name starts with the prefix to the consumer.
+     *
+     * @return The number of positions passed.
+     */
+    int positionsWithPrefix(String prefix, int limit, IntConsumer consumer) {
+        int node = ROOT;
+        for (int i = 0; i < prefix.length() && node != NONE; i++) {
+            node = child(node, prefix.charAt(i));
+        }
+        if (node == NONE || limit <= 0) {
+            return 0;
+        }
+        int found = 0;
+        int[] stack = new int[16];
+        int depth = 0;
+        stack[depth++] = node;
+        while (depth > 0) {
+            int current = stack[--depth];
+            for (int entry = firstEntry[current]; entry != NONE; entry = entryNext[entry]) {
+                consumer.accept(positionOfOrdinal(entryPositions[entry]));
+                if (++found == limit) {
+                    return found;
+                }
+            }
+            for (int c = firstChild[current]; c != NONE; c = nextSibling[c]) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = c;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Records a book appended at the end of the list.
+     */
+    void added(int id, String name) {
+        int ordinal = nextOrdinal++;
+        if (removedTree != null && nextOrdinal == removedTree.length) {
+            growRemovedTree();
+        }
+        putId(id, ordinal);
+        if (name != null) {
+            int node = ROOT;
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                int next = child(node, c);
+                if (next == NONE) {
+                    next = newNode(c);
+                    nextSibling[next] = firstChild[node];
+                    firstChild[node] = next;
+                }
+                node = next;
+            }
+            int entry = newEntry(ordinal);
+            entryNext[entry] = firstEntry[node];
+            firstEntry[node] = entry;
+        }
+    }
+
+    /**
+     * Records that the book at the given position was removed, so all later books moved up by one.
+     *
+     * @return false if the index cannot be updated incrementally (a later book has the same id) and must be rebuilt.
+     */
+    boolean removed(int position, int id, String name) {
+        int ordinal = ordinalAt(position);
+        if (!removeId(id, ordinal)) {
+            return false;
+        }
+        if (name != null) {
+            int node = ROOT;
+            for (int i = 0; i < name.length() && node != NONE; i++) {
+                node = child(node, name.charAt(i));
+            }
+            if (node != NONE) {
+                unlinkEntry(node, ordinal);
+            }
+        }
+        markRemoved(ordinal);
+        if (removedCount * 2 > nextOrdinal) {
+            renumber();
+        }
+        return true;
+    }
+
+    private int positionOfOrdinal(int ordinal) {
+        int[] tree = removedTree;
+        if (tree == null) {
+            return ordinal;
+        }
+        int removedBefore = 0;
+        for (int i = ordinal; i > 0; i -= i & -i) {
+            removedBefore += tree[i];
+        }
+        return ordinal - removedBefore;
+    }
+
+    /**
+     * @return The ordinal of the book now at the given position: the (position + 1)-th ordinal that was not removed.
+     */
+    private int ordinalAt(int position) {
+        int[] tree = removedTree;
+        if (tree == null) {
+            return position;
+        }
+        int capacity = tree.length - 1;
+        int ordinal = 0;
+        int remaining = position + 1;
+        for (int step = capacity; step > 0; step >>= 1) {
+            int next = ordinal + step;
+            if (next <= capacity) {
+                int kept = step - tree[next];
+                if (kept < remaining) {
+                    ordinal = next;
+                    remaining -= kept;
+                }
+            }
+        }
+        return ordinal;
+    }
+
+    private void markRemoved(int ordinal) {
+        if (removedTree == null) {
+            removedTree = new int[Integer.highestOneBit(Math.max(16, nextOrdinal)) * 2 + 1];
+        }
+        int[] tree = removedTree;
+        for (int i = ordinal + 1; i < tree.length; i += i & -i) {
+            tree[i]++;
+        }
+        removedCount++;
+    }
+
+    /**
+     * Doubles the capacity of the Fenwick tree. The new upper half holds no removed ordinals yet, so only its top node,
+     * which covers the whole tree, needs a value.
+     */
+    private void growRemovedTree() {
+        int capacity = (removedTree.length - 1) * 2;
+        removedTree = Arrays.copyOf(removedTree, capacity + 1);
+        removedTree[capacity] = removedCount;
+    }
+
+    /**
+     * Replaces every stored ordinal by the book's current position and drops the Fenwick tree.
+     */
+    private void renumber() {
+        for (int slot = 0; slot < idPositions.length; slot++) {
+            if (idPositions[slot] != 0) {
+                idPositions[slot] = positionOfOrdinal(idPositions[slot] - 1) + 1;
+            }
+        }
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (entryPositions[entry] >= 0) {
+                entryPositions[entry] = positionOfOrdinal(entryPositions[entry]);
+            }
+        }
+        nextOrdinal -= removedCount;
+        removedCount = 0;
+        removedTree = null;
+    }
+
+    private int child(int node, char c) {
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            if (nodeChars[child] == c) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    private int newNode(char c) {
+        if (nodeCount == nodeChars.length) {
+            int capacity = nodeCount * 2;
+            nodeChars = Arrays.copyOf(nodeChars, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            firstEntry = Arrays.copyOf(firstEntry, capacity);
+        }
+        int node = nodeCount++;
+        nodeChars[node] = c;
+        firstChild[node] = NONE;
+        nextSibling[node] = NONE;
+        firstEntry[node] = NONE;
+        return node;
+    }
+
+    private int newEntry(int position) {
+        int entry;
+        if (freeEntries != NONE) {
+            entry = freeEntries;
+            freeEntries = entryNext[entry];
+        } else {
+            if (entryCount == entryPositions.length) {
+                int capacity = Math.max(16, entryCount * 2);
+                entryPositions = Arrays.copyOf(entryPositions, capacity);
+                entryNext = Arrays.copyOf(entryNext, capacity);
+            }
+            entry = entryCount++;
+        }
+        entryPositions[entry] = position;
+        return entry;
+    }
+
+    private void unlinkEntry(int node, int ordinal) {
+        int previous = NONE;
+        for (int entry = firstEntry[node]; entry != NONE; previous = entry, entry = entryNext[entry]) {
+            if (entryPositions[entry] == ordinal) {
+                if (previous == NONE) {
+                    firstEntry[node] = entryNext[entry];
+                } else {
+                    entryNext[previous] = entryNext[entry];
+                }
+                // Free entries keep an ordinal that no book can have, so renumber() leaves them alone.
+                entryPositions[entry] = Integer.MIN_VALUE;
+                entryNext[entry] = freeEntries;
+                freeEntries = entry;
+                return;
+            }
+        }
+    }
+
+    private void putId(int id, int ordinal) {
+        if ((idCount + 1) * 2 > idKeys.length) {
+            resizeIds(idKeys.length * 2);
+        }
+        int mask = idKeys.length - 1;
+        for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+            if (idPositions[slot] == 0) {
+                idKeys[slot] = id;
+                idPositions[slot] = ordinal + 1;
+                idCounts[slot] = 1;
+                idCount++;
+                return;
+            }
+            if (idKeys[slot] == id) {
+                // Keep the first book with this id; ordinals only ever grow when books are appended.
+                idCounts[slot]++;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false if the book is the first of several with this id, so the index would have to find the next one.
+     */
+    private boolean removeId(int id, int ordinal) {
+        int mask = idKeys.length - 1;
+        int slot = hash(id) & mask;
+        while (idPositions[slot] != 0 && idKeys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        if (idPositions[slot] == 0) {
+            return true;
+        }
+        if (idCounts[slot] > 1) {
+            if (idPositions[slot] - 1 == ordinal) {
+                return false;
+            }
+            idCounts[slot]--;
+            return true;
+        }
+        idCount--;
+        // Backward-shift deletion: move later entries of the probe chain into the hole so lookups never stop early.
+        int hole = slot;
+        for (int next = (hole + 1) & mask; idPositions[next] != 0; next = (next + 1) & mask) {
+            int home = hash(idKeys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                idKeys[hole] = idKeys[next];
+                idPositions[hole] = idPositions[next];
+                idCounts[hole] = idCounts[next];
+                hole = next;
+            }
+        }
+        idPositions[hole] = 0;
+        return true;
+    }
+
+    private void resizeIds(int capacity) {
+        int[] oldKeys = idKeys;
+        int[] oldPositions = idPositions;
+        int[] oldCounts = idCounts;
+        idKeys = new int[capacity];
+        idPositions = new int[capacity];
+        idCounts = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldPositions[i] != 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (idPositions[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                idKeys[slot] = oldKeys[i];
+                idPositions[slot] = oldPositions[i];
+                idCounts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
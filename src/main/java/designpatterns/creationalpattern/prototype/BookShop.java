@@ -1,17 +1,43 @@
 package designpatterns.creationalpattern.prototype;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 @Getter
 @Setter
-public class BookShop implements Cloneable {
+public class BookShop implements Cloneable, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    // Version of a list that does not track its changes; an index over it is never considered current.
+    private static final int UNKNOWN_VERSION = Integer.MIN_VALUE;
+    // The serialized form keeps both fields, although books is transient: its declared type (List) is not Serializable,
+    // so it is written by hand in writeObject. Every list the shop holds (see setBooks) is Serializable.
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("shopName", String.class),
+            new ObjectStreamField("books", List.class)
+    };
 
     private String shopName;
-    private List<Book> books = new ArrayList<>();
+    private transient List<Book> books = new PersistentVector<>();
+    // Built on the first lookup and kept up to date by addBook/removeBook, see currentIndex().
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient BookIndex index;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient int indexedVersion;
 
     public void loadData() {
         for (int i = 0; i < 10; i++) {
@@ -22,6 +48,130 @@ public class BookShop implements Cloneable {
         }
     }
 
+    /**
+     * Adds the books of a catalog file (one {@code id,name} line per book) to this shop. The file is memory-mapped and
+     * parsed on all cores, see {@link CatalogLoader}.
+     */
+    public CatalogLoader.LoadStats loadData(Path catalog) throws IOException {
+        return new CatalogLoader().load(catalog, books);
+    }
+
+    public CatalogLoader.LoadStats loadData(Path catalog, CatalogLoader.ProgressListener listener) throws IOException {
+        return new CatalogLoader().load(catalog, books, listener);
+    }
+
+    /**
+     * Writes this shop to a compact binary snapshot file, replacing the file atomically. Restore it with {@link #loadSnapshot(Path)}
+     * instead of loading the catalog again.
+     */
+    public void saveSnapshot(Path file) throws IOException {
+        BookShopSnapshotFile.write(file, this);
+    }
+
+    /**
+     * Restores a shop from a snapshot written by {@link #saveSnapshot(Path)}. The file is memory-mapped and nothing is
+     * decoded up front: each book is read from the file when it is accessed, so restoring takes the same time no matter
+     * how big the catalog is. The books are kept in a {@link CompactBookList}, which copies them to the heap on the
+     * first change.
+     */
+    public static BookShop loadSnapshot(Path file) throws IOException {
+        return BookShopSnapshotFile.read(file);
+    }
+
+    /**
+     * Replaces the books. Lists other than a {@link PersistentVector} or {@link CompactBookList} are copied into a
+     * {@code PersistentVector}, so that clones stay cheap and the lookup indexes can tell when the list changed.
+     */
+    public void setBooks(List<Book> books) {
+        this.books = books instanceof PersistentVector<Book> || books instanceof CompactBookList ? books : new PersistentVector<>(books);
+        this.index = null;
+    }
+
+    /**
+     * Adds a book and updates the lookup indexes incrementally.
+     */
+    public void addBook(Book book) {
+        BookIndex updated = isIndexCurrent() ? index.writable() : null;
+        books.add(book);
+        if (updated != null) {
+            updated.added(book.getId(), book.getName());
+        }
+        indexUpdated(updated);
+    }
+
+    /**
+     * Removes the first book with the given id and updates the lookup indexes incrementally.
+     *
+     * @return The removed book, or {@code null} if there is no book with that id.
+     */
+    public Book removeBook(int id) {
+        int position = currentIndex().positionOf(id);
+        if (position < 0) {
+            return null;
+        }
+        Book removed = books.remove(position);
+        BookIndex updated = index.writable();
+        indexUpdated(updated.removed(position, removed.getId(), removed.getName()) ? updated : null);
+        return removed;
+    }
+
+    /**
+     * Finds a book by id through a hash index instead of scanning the list.
+     *
+     * @return The first book with that id, or {@code null} if there is none.
+     */
+    public Book findById(int id) {
+        int position = currentIndex().positionOf(id);
+        return position < 0 ? null : books.get(position);
+    }
+
+    /**
+     * Finds books whose name starts with the given prefix, for example to suggest titles while the user types.
+     *
+     * @param limit The most books to return.
+     * @return Up to {@code limit} matching books, in no particular order.
+     */
+    public List<Book> findByNamePrefix(String prefix, int limit) {
+        List<Book> found = new ArrayList<>(Math.min(limit, 64));
+        currentIndex().positionsWithPrefix(prefix, limit, position -> found.add(books.get(position)));
+        return found;
+    }
+
+    /**
+     * Drops the lookup indexes so they are rebuilt on the next lookup. Changes through {@link #getBooks()} are noticed
+     * automatically, but changing the id or name of a {@code Book} in place is not; call this afterwards.
+     */
+    public void reindex() {
+        index = null;
+    }
+
+    private BookIndex currentIndex() {
+        if (!isIndexCurrent()) {
+            indexUpdated(BookIndex.build(books));
+        }
+        return index;
+    }
+
+    private boolean isIndexCurrent() {
+        int version = versionOf(books);
+        return index != null && version != UNKNOWN_VERSION && version == indexedVersion;
+    }
+
+    private void indexUpdated(BookIndex updated) {
+        index = updated;
+        indexedVersion = versionOf(books);
+    }
+
+    private static int versionOf(List<Book> books) {
+        if (books instanceof PersistentVector<Book> vector) {
+            return vector.version();
+        }
+        if (books instanceof CompactBookList compact) {
+            return compact.version();
+        }
+        return UNKNOWN_VERSION;
+    }
+
     @Override
     public String toString() {
         return "BookShop{" +
@@ -34,13 +184,72 @@ public class BookShop implements Cloneable {
      * This is the core of the Prototype pattern.
      * This implementation performs a shallow copy. It creates a new BookShop and a new List,
      * but the Book objects inside the list are references to the original Book objects.
+     * <p>
+     * The books are kept in a {@link PersistentVector} (or, after {@link #compact()}, a {@link CompactBookList}), so the new list shares its structure with the original one and
+     * the clone takes constant time no matter how many books the shop has. Adding or removing books later copies only the
+     * part of the structure that changes, in the original as well as in the clone.
      */
     @Override
     public BookShop clone() {
         BookShop clone = new BookShop();
-        for (Book b : getBooks()) {
-            clone.getBooks().add(b);
+        clone.books = copyOf(books);
+        if (index != null) {
+            clone.index = index.share();
+            clone.indexedVersion = indexedVersion;
         }
         return clone;
     }
+
+    private static List<Book> copyOf(List<Book> books) {
+        if (books instanceof PersistentVector<Book> vector) {
+            return vector.snapshot();
+        }
+        if (books instanceof CompactBookList compact) {
+            return compact.snapshot();
+        }
+        return new PersistentVector<>(books);
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("shopName", shopName);
+        fields.put("books", books);
+        out.writeFields();
+    }
+
+    @Serial
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        shopName = (String) fields.get("shopName", null);
+        List<Book> books = (List<Book>) fields.get("books", null);
+        setBooks(books != null ? books : new PersistentVector<>());
+    }
+
+    /**
+     * Switches the books to the columnar {@link CompactBookList}, which needs several times less memory for big catalogs.
+     * <p>
+     * Afterwards {@link #getBooks()} still returns a {@code List<Book>}. Each {@code Book} it hands out is a live view of
+     * one row: its setters write straight into the columns, and the lookup indexes notice the change and are rebuilt on
+     * the next lookup. A view is valid until a book is added or removed; using it after that throws a
+     * {@link java.util.ConcurrentModificationException}. Keep a book beyond that with {@code book.clone()}, which returns
+     * a detached copy.
+     */
+    public void compact() {
+        if (!(books instanceof CompactBookList)) {
+            CompactBookList compact = new CompactBookList(books);
+            compact.trimToSize();
+            books = compact;
+            index = null;
+        }
+    }
+
+    /**
+     * Deep copy: the new shop gets its own copy of every `Book`, so changing a book in one shop does not affect the other.
+     * Unlike {@link #clone()}, the shop name is copied as well.
+     */
+    public BookShop deepClone() {
+        return DeepCopier.copy(this);
+    }
 }
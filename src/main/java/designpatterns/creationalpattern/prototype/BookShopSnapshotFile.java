@@ -0,0 +1,68 @@
+package designpatterns.creationalpattern.prototype;
+
+import designpatterns.creationalpattern.snapshot.SnapshotHeader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Reads and writes the binary book shop snapshot.
+ *
+ * <h2>Layout</h2>
+ * After the {@link SnapshotHeader} (kind {@link SnapshotHeader#KIND_BOOK_SHOP}, the number of books):
+ * <pre>
+ * int     byte length of the shop name (-1 for null), followed by its UTF-8 bytes
+ * columns the books in the columnar layout of {@link CompactBookList}: ids, name offsets, null-name bits, name bytes
+ * </pre>
+ * Restoring maps the file and hands the columns to a {@link CompactBookList}, which reads books straight from the
+ * mapping until the shop is first changed.
+ */
+final class BookShopSnapshotFile {
+    private static final int NULL_LENGTH = -1;
+
+    private BookShopSnapshotFile() {
+    }
+
+    static void write(Path file, BookShop shop) throws IOException {
+        CompactBookList columns = shop.getBooks() instanceof CompactBookList compact ? compact : new CompactBookList(shop.getBooks());
+        byte[] shopName = shop.getShopName() == null ? null : shop.getShopName().getBytes(StandardCharsets.UTF_8);
+        SnapshotHeader.writeAtomically(file, stream -> {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+            new SnapshotHeader(SnapshotHeader.KIND_BOOK_SHOP, 0, columns.size()).write(out);
+            out.writeInt(shopName == null ? NULL_LENGTH : shopName.length);
+            if (shopName != null) {
+                out.write(shopName);
+            }
+            columns.writeColumns(out);
+            out.flush();
+        });
+    }
+
+    /**
+     * @throws IOException if the file is not a book shop snapshot, or is truncated or damaged.
+     */
+    static BookShop read(Path file) throws IOException {
+        ByteBuffer buffer = SnapshotHeader.map(file);
+        SnapshotHeader header = SnapshotHeader.read(buffer, SnapshotHeader.KIND_BOOK_SHOP);
+        if (buffer.limit() < SnapshotHeader.SIZE + 4) {
+            throw new IOException("Snapshot truncated: " + file);
+        }
+        int nameLength = buffer.getInt(SnapshotHeader.SIZE);
+        if (nameLength < NULL_LENGTH || nameLength > buffer.limit() - SnapshotHeader.SIZE - 4) {
+            throw new IOException("Corrupt shop name length " + nameLength + " in " + file);
+        }
+        int columnsStart = SnapshotHeader.SIZE + 4 + Math.max(0, nameLength);
+        BookShop shop = new BookShop();
+        if (nameLength != NULL_LENGTH) {
+            byte[] name = new byte[nameLength];
+            buffer.get(SnapshotHeader.SIZE + 4, name);
+            shop.setShopName(new String(name, StandardCharsets.UTF_8));
+        }
+        shop.setBooks(CompactBookList.mapped(buffer.slice(columnsStart, buffer.limit() - columnsStart), header.count()));
+        return shop;
+    }
+}
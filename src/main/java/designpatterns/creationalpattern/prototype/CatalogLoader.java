@@ -0,0 +1,236 @@
+package designpatterns.creationalpattern.prototype;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads a book catalog from a CSV file into a list of {@link Book}s, using all cores.
+ *
+ * <h2>File format</h2>
+ * One book per line as {@code id,name}, UTF-8 encoded. The name is everything after the first comma (there is no quoting),
+ * lines may end with {@code \n} or {@code \r\n}, and blank lines are ignored. If the first line does not start with a digit,
+ * it is treated as a header and skipped.
+ *
+ * <h2>How it works</h2>
+ * <ol>
+ *     <li>The file is split into chunks of at most {@value #MAX_CHUNK_BYTES} bytes. Every chunk boundary is moved forward to
+ *     the next line break, so no line is split between two chunks.</li>
+ *     <li>Each chunk is memory-mapped and parsed on its own thread. The parser works on the mapped bytes directly:
+ *     the id is read digit by digit and the name is decoded straight from the file's bytes, so no {@code String} is
+ *     created for a whole line and the file is never copied onto the heap.</li>
+ *     <li>The books of each chunk are appended to the target list in file order, as soon as that chunk and all chunks
+ *     before it are done.</li>
+ * </ol>
+ * A {@link ProgressListener} is told about every finished chunk, and the returned {@link LoadStats} report the throughput.
+ */
+public class CatalogLoader {
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+    private static final int MAX_CHUNK_BYTES = 64 << 20;
+    private static final int MAX_NAME_BYTES = 1 << 16;
+
+    private final int parallelism;
+
+    public CatalogLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public CatalogLoader(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Is told how far a load has come. Called from the loader's worker threads, once per finished chunk.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long bytesRead, long totalBytes, long rowsRead);
+    }
+
+    /**
+     * The result of a load.
+     */
+    public record LoadStats(long rows, long bytes, Duration elapsed) {
+        public double rowsPerSecond() {
+            long nanos = Math.max(1, elapsed.toNanos());
+            return rows * 1_000_000_000.0 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows (%,d bytes) in %d ms, %,.0f rows/s", rows, bytes, elapsed.toMillis(), rowsPerSecond());
+        }
+    }
+
+    public LoadStats load(Path file, List<? super Book> target) throws IOException {
+        return load(file, target, null);
+    }
+
+    /**
+     * Appends all books of the catalog file to {@code target}, in file order.
+     *
+     * @param listener Told about the progress of the load; may be {@code null}.
+     * @throws IllegalArgumentException if a line is malformed or its id does not fit an {@code int}; the message contains
+     *                                  its byte offset.
+     */
+    public LoadStats load(Path file, List<? super Book> target, ProgressListener listener) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] boundaries = chunkBoundaries(channel, size);
+            AtomicLong bytesRead = new AtomicLong();
+            AtomicLong rowsRead = new AtomicLong();
+            long rows = 0;
+            try (ExecutorService workers = Executors.newFixedThreadPool(parallelism,
+                    Thread.ofPlatform().name("catalog-loader-", 0).daemon().factory())) {
+                List<Future<List<Book>>> chunks = new ArrayList<>(boundaries.length - 1);
+                for (int i = 0; i < boundaries.length - 1; i++) {
+                    long from = boundaries[i];
+                    long to = boundaries[i + 1];
+                    chunks.add(workers.submit(() -> {
+                        List<Book> books = parseChunk(channel, from, to);
+                        long done = bytesRead.addAndGet(to - from);
+                        long loaded = rowsRead.addAndGet(books.size());
+                        if (listener != null) {
+                            listener.onProgress(done, size, loaded);
+                        }
+                        return books;
+                    }));
+                }
+                try {
+                    for (Future<List<Book>> chunk : chunks) {
+                        List<Book> books = chunk.get();
+                        target.addAll(books);
+                        rows += books.size();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    chunks.forEach(chunk -> chunk.cancel(true));
+                    throw new IOException("Interrupted while loading " + file, e);
+                } catch (ExecutionException e) {
+                    chunks.forEach(chunk -> chunk.cancel(true));
+                    throw rethrow(e.getCause());
+                }
+            }
+            return new LoadStats(rows, size, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private long[] chunkBoundaries(FileChannel channel, long size) throws IOException {
+        long chunkSize = Math.clamp(size / (parallelism * 4L), MIN_CHUNK_BYTES, MAX_CHUNK_BYTES);
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        long position = 0;
+        while (position < size) {
+            long next = position + chunkSize >= size ? size : nextLineStart(channel, position + chunkSize, size);
+            boundaries.add(next);
+            position = next;
+        }
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // The position after the first line break at or after the given position, or the file size if there is none.
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static List<Book> parseChunk(FileChannel channel, long from, long to) throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        int limit = bytes.limit();
+        List<Book> books = new ArrayList<>(limit / 16);
+        byte[] name = new byte[256];
+        int position = 0;
+        if (from == 0 && limit > 0 && !isDigit(bytes.get(0))) {
+            position = lineEnd(bytes, 0, limit) + 1;
+        }
+        while (position < limit) {
+            int end = lineEnd(bytes, position, limit);
+            int contentEnd = end > position && bytes.get(end - 1) == '\r' ? end - 1 : end;
+            if (contentEnd > position) {
+                int id = 0;
+                int i = position;
+                byte b;
+                try {
+                    while (i < contentEnd && isDigit(b = bytes.get(i))) {
+                        id = Math.addExact(Math.multiplyExact(id, 10), b - '0');
+                        i++;
+                    }
+                } catch (ArithmeticException e) {
+                    throw new IllegalArgumentException("Book id out of range at byte " + (from + position), e);
+                }
+                if (i == position || i == contentEnd || bytes.get(i) != ',') {
+                    throw new IllegalArgumentException("Malformed catalog line at byte " + (from + position));
+                }
+                int nameLength = contentEnd - i - 1;
+                if (nameLength > MAX_NAME_BYTES) {
+                    throw new IllegalArgumentException("Book name too long at byte " + (from + position));
+                }
+                if (nameLength > name.length) {
+                    name = new byte[Math.max(nameLength, name.length * 2)];
+                }
+                bytes.get(i + 1, name, 0, nameLength);
+                Book book = new Book();
+                book.setId(id);
+                book.setName(new String(name, 0, nameLength, StandardCharsets.UTF_8));
+                books.add(book);
+            }
+            position = end + 1;
+        }
+        return books;
+    }
+
+    private static int lineEnd(MappedByteBuffer bytes, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (bytes.get(i) == '\n') {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static IOException rethrow(Throwable cause) {
+        if (cause instanceof IOException e) {
+            return e;
+        }
+        if (cause instanceof RuntimeException e) {
+            throw e;
+        }
+        if (cause instanceof Error e) {
+            throw e;
+        }
+        return new IOException(cause);
+    }
+}
@@ -0,0 +1,521 @@
+package designpatterns.creationalpattern.prototype;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * A list of books stored column by column in a few primitive arrays instead of as one {@link Book} object per book.
+ *
+ * <h2>Layout</h2>
+ * <ul>
+ *     <li>{@code ids}: the id of every book.</li>
+ *     <li>{@code names}: the UTF-8 bytes of all names, one after the other (the "arena").</li>
+ *     <li>{@code nameOffsets}: where each name starts in the arena; name {@code i} ends where name {@code i + 1} starts.</li>
+ * </ul>
+ * A book with a ten-character name takes about 18 bytes this way, compared to roughly 80 bytes for a {@code Book}, its
+ * {@code String} and the {@code String}'s byte array. Scans such as {@link #indexOfId(int)} and {@link #indexOfName(String)}
+ * walk through contiguous arrays and never create objects.
+ *
+ * <h2>Book views</h2>
+ * {@link #get(int)} returns a small view of the book at that index: its getters read the columns and its setters write
+ * them, so {@code list.get(i).setName("...")} changes the list just like it changes a list of {@code Book} objects. A view
+ * stays valid until the list is changed structurally (a book added or removed); after that, using it throws a
+ * {@link ConcurrentModificationException} instead of reading or writing another book. {@code clone()} on a view returns a
+ * plain, detached {@code Book}.
+ *
+ * <h2>Copies</h2>
+ * {@link #snapshot()} shares the arrays with the copy. Whichever list is changed first copies them (copy-on-write), so
+ * making the copy is O(1) and the first change afterwards is O(n).
+ *
+ * <h2>Mapped lists</h2>
+ * A list restored from a binary snapshot (see {@code BookShop.loadSnapshot}) starts out reading its columns straight from
+ * the memory-mapped file: {@link #get(int)}, {@link #idAt(int)} and {@link #nameAt(int)} only touch the pages of the books
+ * they read. The first change, or the first full scan, copies the columns into arrays in one bulk copy per column.
+ */
+public class CompactBookList extends AbstractList<Book> implements RandomAccess, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size;
+    private int[] ids;
+    private byte[] names;
+    private int[] nameOffsets;
+    private BitSet nullNames;
+    // True while the arrays may also be referenced by a snapshot.
+    private transient boolean shared;
+    // Counts every change, including set(), unlike modCount which only counts structural ones.
+    private transient int version;
+    // Set while the columns are still read from a memory-mapped snapshot instead of the arrays, see materialize().
+    private transient MappedColumns mapped;
+
+    public CompactBookList() {
+        this.ids = new int[INITIAL_CAPACITY];
+        this.names = new byte[INITIAL_CAPACITY * 8];
+        this.nameOffsets = new int[INITIAL_CAPACITY + 1];
+        this.nullNames = new BitSet();
+    }
+
+    public CompactBookList(Collection<? extends Book> books) {
+        this();
+        for (Book book : books) {
+            insert(size, book);
+        }
+    }
+
+    private CompactBookList(CompactBookList source) {
+        this.size = source.size;
+        this.ids = source.ids;
+        this.names = source.names;
+        this.nameOffsets = source.nameOffsets;
+        this.nullNames = source.nullNames;
+        this.shared = true;
+        this.version = source.version;
+        this.mapped = source.mapped;
+    }
+
+    /**
+     * Creates a list that reads its books from the given columns, as written by {@link #writeColumns(DataOutput)}.
+     * The buffer must not change while the list uses it.
+     * <p>
+     * The columns are checked here, so that a truncated or damaged file fails now and not on some later {@code get}: they
+     * must fit into the buffer, and the name offsets must start at 0, never decrease and end inside the name bytes. This
+     * reads the offset column once but decodes no book.
+     *
+     * @throws IOException if the columns do not fit the buffer or the offsets are inconsistent.
+     */
+    static CompactBookList mapped(ByteBuffer columns, int size) throws IOException {
+        if (size < 0) {
+            throw new IOException("Negative book count: " + size);
+        }
+        long idsBytes = 4L * size;
+        long offsetsBytes = 4L * (size + 1);
+        long nullBytes = 8L * nullWords(size);
+        long namesStart = idsBytes + offsetsBytes + nullBytes;
+        if (namesStart > columns.limit()) {
+            throw new IOException("Snapshot truncated: " + size + " books need " + namesStart + " bytes of columns, found "
+                    + columns.limit());
+        }
+        IntBuffer nameOffsets = columns.slice((int) idsBytes, (int) offsetsBytes).asIntBuffer();
+        int previous = 0;
+        for (int i = 0; i <= size; i++) {
+            int offset = nameOffsets.get(i);
+            if (offset < previous || (i == 0 && offset != 0)) {
+                throw new IOException("Corrupt name offset " + offset + " of book " + i);
+            }
+            previous = offset;
+        }
+        if (namesStart + previous > columns.limit()) {
+            throw new IOException("Snapshot truncated: names end at " + (namesStart + previous) + ", found "
+                    + columns.limit() + " bytes of columns");
+        }
+        CompactBookList list = new CompactBookList();
+        list.size = size;
+        list.mapped = new MappedColumns(
+                columns.slice(0, (int) idsBytes).asIntBuffer(),
+                nameOffsets,
+                columns.slice((int) (idsBytes + offsetsBytes), (int) nullBytes).asLongBuffer(),
+                columns.slice((int) namesStart, previous));
+        return list;
+    }
+
+    /**
+     * Writes the columns: the ids, the name offsets, the null-name bits as longs and the name bytes.
+     */
+    void writeColumns(DataOutput out) throws IOException {
+        materialize();
+        for (int i = 0; i < size; i++) {
+            out.writeInt(ids[i]);
+        }
+        for (int i = 0; i <= size; i++) {
+            out.writeInt(nameOffsets[i]);
+        }
+        long[] nullWords = Arrays.copyOf(nullNames.toLongArray(), nullWords(size));
+        for (long word : nullWords) {
+            out.writeLong(word);
+        }
+        out.write(names, 0, nameOffsets[size]);
+    }
+
+    private static int nullWords(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    // Copies the mapped columns into arrays, so that the list can be changed or scanned.
+    private void materialize() {
+        MappedColumns columns = mapped;
+        if (columns == null) {
+            return;
+        }
+        int capacity = Math.max(size, INITIAL_CAPACITY);
+        ids = new int[capacity];
+        columns.ids().get(0, ids, 0, size);
+        nameOffsets = new int[capacity + 1];
+        columns.nameOffsets().get(0, nameOffsets, 0, size + 1);
+        names = new byte[Math.max(nameOffsets[size], INITIAL_CAPACITY)];
+        columns.names().get(0, names, 0, nameOffsets[size]);
+        long[] nullWords = new long[columns.nullNames().limit()];
+        columns.nullNames().get(0, nullWords);
+        nullNames = BitSet.valueOf(nullWords);
+        shared = false;
+        mapped = null;
+    }
+
+    private record MappedColumns(IntBuffer ids, IntBuffer nameOffsets, LongBuffer nullNames, ByteBuffer names) {
+    }
+
+    /**
+     * Returns an independent copy of this list that shares its arrays until one of the two lists is changed.
+     */
+    public CompactBookList snapshot() {
+        shared = true;
+        return new CompactBookList(this);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A number that changes whenever the list is changed, including by {@code set}. Snapshots start with the version of their source.
+     */
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Returns a live view of the book at the given index, see "Book views" above.
+     */
+    @Override
+    public Book get(int index) {
+        checkIndex(index, size);
+        return new BookView(this, index);
+    }
+
+    // A detached copy of the book at the given index, for the values returned by set() and remove().
+    private Book copyOf(int index) {
+        Book book = new Book();
+        book.setId(idAt(index));
+        book.setName(nameAt(index));
+        return book;
+    }
+
+    public int idAt(int index) {
+        checkIndex(index, size);
+        MappedColumns columns = mapped;
+        return columns != null ? columns.ids().get(index) : ids[index];
+    }
+
+    public String nameAt(int index) {
+        checkIndex(index, size);
+        MappedColumns columns = mapped;
+        if (columns != null) {
+            if ((columns.nullNames().get(index >>> 6) & (1L << index)) != 0) {
+                return null;
+            }
+            int start = columns.nameOffsets().get(index);
+            byte[] bytes = new byte[columns.nameOffsets().get(index + 1) - start];
+            columns.names().get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (nullNames.get(index)) {
+            return null;
+        }
+        int start = nameOffsets[index];
+        return new String(names, start, nameOffsets[index + 1] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The index of the first book with the given id, or -1 if there is none.
+     */
+    public int indexOfId(int id) {
+        materialize();
+        int[] ids = this.ids;
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds a book by name by comparing the encoded bytes, without decoding any stored name.
+     *
+     * @return The index of the first book with the given name, or -1 if there is none.
+     */
+    public int indexOfName(String name) {
+        materialize();
+        if (name == null) {
+            int first = nullNames.nextSetBit(0);
+            return first >= 0 && first < size ? first : -1;
+        }
+        byte[] wanted = name.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < size; i++) {
+            int start = nameOffsets[i];
+            int end = nameOffsets[i + 1];
+            if (end - start == wanted.length && !nullNames.get(i)
+                    && Arrays.equals(names, start, end, wanted, 0, wanted.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Passes every id to the consumer, in list order.
+     */
+    public void forEachId(IntConsumer consumer) {
+        materialize();
+        int[] ids = this.ids;
+        for (int i = 0; i < size; i++) {
+            consumer.accept(ids[i]);
+        }
+    }
+
+    @Override
+    public boolean add(Book book) {
+        add(size, book);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Book book) {
+        checkIndex(index, size + 1);
+        insert(index, book);
+    }
+
+    // Not overridable, unlike add(), so that the constructor does not call into subclasses.
+    private void insert(int index, Book book) {
+        materialize();
+        byte[] name = encode(book.getName());
+        ensureOwned(size + 1, nameOffsets[size] + name.length);
+        int nameStart = nameOffsets[index];
+        if (index < size) {
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(names, nameStart, names, nameStart + name.length, nameOffsets[size] - nameStart);
+            for (int i = size; i > index; i--) {
+                nullNames.set(i, nullNames.get(i - 1));
+            }
+        }
+        for (int i = size + 1; i > index; i--) {
+            nameOffsets[i] = nameOffsets[i - 1] + name.length;
+        }
+        ids[index] = book.getId();
+        System.arraycopy(name, 0, names, nameStart, name.length);
+        nullNames.set(index, book.getName() == null);
+        size++;
+        modCount++;
+        version++;
+    }
+
+    @Override
+    public Book set(int index, Book book) {
+        checkIndex(index, size);
+        Book previous = copyOf(index);
+        // Read both values first; the book may be a view of this very list.
+        int id = book.getId();
+        String name = book.getName();
+        setName(index, name);
+        setId(index, id);
+        return previous;
+    }
+
+    private void setId(int index, int id) {
+        materialize();
+        ensureOwned(size, nameOffsets[size]);
+        ids[index] = id;
+        version++;
+    }
+
+    private void setName(int index, String value) {
+        materialize();
+        byte[] name = encode(value);
+        int oldLength = nameOffsets[index + 1] - nameOffsets[index];
+        ensureOwned(size, nameOffsets[size] + Math.max(0, name.length - oldLength));
+        shiftNames(index + 1, name.length - oldLength);
+        System.arraycopy(name, 0, names, nameOffsets[index], name.length);
+        nullNames.set(index, value == null);
+        version++;
+    }
+
+    @Override
+    public Book remove(int index) {
+        checkIndex(index, size);
+        Book removed = copyOf(index);
+        materialize();
+        ensureOwned(size, nameOffsets[size]);
+        int nameLength = nameOffsets[index + 1] - nameOffsets[index];
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        shiftNames(index + 1, -nameLength);
+        System.arraycopy(nameOffsets, index + 1, nameOffsets, index, size - index);
+        for (int i = index; i < size - 1; i++) {
+            nullNames.set(i, nullNames.get(i + 1));
+        }
+        nullNames.clear(size - 1);
+        size--;
+        modCount++;
+        version++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        if (shared || mapped != null) {
+            mapped = null;
+            ids = new int[INITIAL_CAPACITY];
+            names = new byte[INITIAL_CAPACITY * 8];
+            nameOffsets = new int[INITIAL_CAPACITY + 1];
+            nullNames = new BitSet();
+            shared = false;
+        } else {
+            nullNames.clear();
+        }
+        size = 0;
+        modCount++;
+        version++;
+    }
+
+    /**
+     * Shrinks the arrays to the space actually used.
+     */
+    public void trimToSize() {
+        if (mapped != null) {
+            // Reading from the mapping takes no heap at all.
+            return;
+        }
+        ids = Arrays.copyOf(ids, size);
+        names = Arrays.copyOf(names, nameOffsets[size]);
+        nameOffsets = Arrays.copyOf(nameOffsets, size + 1);
+        nullNames = (BitSet) nullNames.clone();
+        shared = false;
+    }
+
+    // Moves the names from index onwards (and their offsets) by delta bytes.
+    private void shiftNames(int index, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        int from = nameOffsets[index];
+        System.arraycopy(names, from, names, from + delta, nameOffsets[size] - from);
+        for (int i = size; i >= index; i--) {
+            nameOffsets[i] += delta;
+        }
+    }
+
+    // Makes sure the arrays belong to this list only and can hold the given number of books and name bytes.
+    private void ensureOwned(int books, int nameBytes) {
+        if (shared || books > ids.length || books + 1 > nameOffsets.length || nameBytes > names.length) {
+            int capacity = books > ids.length ? Math.max(books, ids.length * 2) : ids.length;
+            int nameCapacity = nameBytes > names.length ? Math.max(nameBytes, names.length * 2) : names.length;
+            if (nameCapacity < 0) {
+                throw new IllegalStateException("Book names exceed the maximum array size");
+            }
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, nameCapacity);
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+            if (shared) {
+                nullNames = (BitSet) nullNames.clone();
+                shared = false;
+            }
+        }
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        materialize();
+        out.defaultWriteObject();
+    }
+
+    /**
+     * The {@code Book} returned by {@link #get(int)}. It keeps no values of its own; every getter and setter goes to the
+     * list's columns.
+     */
+    private static final class BookView extends Book {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final CompactBookList list;
+        private final int index;
+        private final int expectedModCount;
+
+        BookView(CompactBookList list, int index) {
+            this.list = list;
+            this.index = index;
+            this.expectedModCount = list.modCount;
+        }
+
+        @Override
+        public int getId() {
+            checkForComodification();
+            return list.idAt(index);
+        }
+
+        @Override
+        public String getName() {
+            checkForComodification();
+            return list.nameAt(index);
+        }
+
+        @Override
+        public void setId(int id) {
+            checkForComodification();
+            list.setId(index, id);
+        }
+
+        @Override
+        public void setName(String name) {
+            checkForComodification();
+            list.setName(index, name);
+        }
+
+        @Override
+        public Book clone() {
+            checkForComodification();
+            return list.copyOf(index);
+        }
+
+        @Override
+        public String toString() {
+            return clone().toString();
+        }
+
+        // Serialized as a plain Book, without the list behind it.
+        @Serial
+        private Object writeReplace() {
+            return clone();
+        }
+
+        private void checkForComodification() {
+            if (list.modCount != expectedModCount) {
+                throw new ConcurrentModificationException("Book view at index " + index + " used after the list changed");
+            }
+        }
+    }
+
+    private static byte[] encode(String name) {
+        return name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package designpatterns.creationalpattern.prototype;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Makes deep copies of object graphs, such as a `BookShop` together with all of its `Book`s.
+ *
+ * <h2>How it works</h2>
+ * The first time an object of some class is copied, a copier for that class is generated and cached in a {@link ClassValue}.
+ * The copier is one {@link MethodHandle} chain built from the class's constructor and field accessors, so a copy
+ * runs no reflection at all: it calls the no-argument constructor and then copies each field directly.
+ * <ul>
+ *     <li>Primitives and immutable values (strings, boxed numbers, enums, read-only buffers such as a mapped snapshot, ...)
+ *     are shared, not copied.</li>
+ *     <li>Arrays, lists, sets and maps from the JDK are copied element by element. Other JDK types are copied with their
+ *     public {@code clone()} method, if they have one (for example {@code BitSet}).</li>
+ *     <li>Records are rebuilt through their canonical constructor from copies of their components.</li>
+ *     <li>Every other object is copied field by field, including private and final fields of its superclasses.
+ *     Fields inherited from JDK classes (such as `AbstractList.modCount`) keep the value the constructor gave them.</li>
+ * </ul>
+ * Each call to {@link #copy(Object)} remembers which copy it made for which original. An object that is reachable
+ * twice is therefore copied only once, so shared references stay shared and cycles do not loop forever.
+ *
+ * <h2>Requirements</h2>
+ * Copied classes need a no-argument constructor (it may be private), and their package must be open to this class.
+ * Other JDK types than the ones listed above cannot be copied and cause an {@link IllegalArgumentException}.
+ */
+public final class DeepCopier {
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class, Class.class);
+
+    private static final MethodHandle COPY_VALUE;
+
+    static {
+        try {
+            COPY_VALUE = MethodHandles.lookup().findStatic(DeepCopier.class, "copyValue",
+                    MethodType.methodType(Object.class, Object.class, IdentityHashMap.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final ClassValue<ClassCopier> COPIERS = new ClassValue<>() {
+        @Override
+        protected ClassCopier computeValue(Class<?> type) {
+            return type.isRecord() ? RecordCopier.of(type) : FieldCopier.of(type);
+        }
+    };
+
+    private static final ClassValue<MethodHandle> JDK_CLONE = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            if (!Cloneable.class.isAssignableFrom(type)) {
+                return null;
+            }
+            try {
+                return MethodHandles.publicLookup().findVirtual(type, "clone", MethodType.methodType(Object.class))
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return null;
+            }
+        }
+    };
+
+    private DeepCopier() {
+    }
+
+    /**
+     * Returns a deep copy of the given object graph.
+     *
+     * @throws IllegalArgumentException if the graph contains an object that cannot be copied.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copy(T source) {
+        return (T) copyValue(source, new IdentityHashMap<>());
+    }
+
+    private static Object copyValue(Object source, IdentityHashMap<Object, Object> copies) {
+        if (source == null) {
+            return null;
+        }
+        Class<?> type = source.getClass();
+        if (isImmutable(type) || source instanceof Buffer buffer && buffer.isReadOnly()) {
+            return source;
+        }
+        Object copy = copies.get(source);
+        if (copy != null) {
+            return copy;
+        }
+        if (type.isArray()) {
+            return copyArray(source, copies);
+        }
+        if (isJdkType(type)) {
+            if (source instanceof Collection<?> collection) {
+                return copyCollection(collection, copies);
+            }
+            if (source instanceof Map<?, ?> map) {
+                return copyMap(map, copies);
+            }
+            return copyCloneable(source, copies);
+        }
+        return COPIERS.get(type).copy(source, copies);
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return IMMUTABLE_TYPES.contains(type) || Enum.class.isAssignableFrom(type)
+                || type.getName().startsWith("java.time.");
+    }
+
+    private static boolean isJdkType(Class<?> type) {
+        return type.getClassLoader() == null;
+    }
+
+    private static Object copyArray(Object source, IdentityHashMap<Object, Object> copies) {
+        Class<?> componentType = source.getClass().getComponentType();
+        int length = Array.getLength(source);
+        if (componentType.isPrimitive()) {
+            Object copy = Array.newInstance(componentType, length);
+            System.arraycopy(source, 0, copy, 0, length);
+            copies.put(source, copy);
+            return copy;
+        }
+        Object[] elements = (Object[]) source;
+        Object[] copy = (Object[]) Array.newInstance(componentType, length);
+        copies.put(source, copy);
+        for (int i = 0; i < length; i++) {
+            copy[i] = copyValue(elements[i], copies);
+        }
+        return copy;
+    }
+
+    // Other JDK types, such as BitSet, are copied with their public clone() method if they have one.
+    private static Object copyCloneable(Object source, IdentityHashMap<Object, Object> copies) {
+        MethodHandle clone = JDK_CLONE.get(source.getClass());
+        if (clone == null) {
+            throw new IllegalArgumentException("Cannot deep-copy " + source.getClass().getName());
+        }
+        try {
+            Object copy = (Object) clone.invokeExact(source);
+            copies.put(source, copy);
+            return copy;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cloning " + source.getClass().getName() + " failed", e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object copyCollection(Collection<?> source, IdentityHashMap<Object, Object> copies) {
+        Collection copy;
+        if (source instanceof SortedSet<?> sorted) {
+            copy = new TreeSet(sorted.comparator());
+        } else if (source instanceof Set<?>) {
+            copy = new LinkedHashSet<>();
+        } else if (source instanceof List<?>) {
+            copy = new ArrayList<>(source.size());
+        } else {
+            throw new IllegalArgumentException("Cannot deep-copy " + source.getClass().getName());
+        }
+        copies.put(source, copy);
+        for (Object element : source) {
+            copy.add(copyValue(element, copies));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object copyMap(Map<?, ?> source, IdentityHashMap<Object, Object> copies) {
+        Map copy;
+        if (source instanceof SortedMap<?, ?> sorted) {
+            copy = new TreeMap(sorted.comparator());
+        } else if (source instanceof LinkedHashMap<?, ?>) {
+            copy = new LinkedHashMap<>();
+        } else {
+            copy = new HashMap<>();
+        }
+        copies.put(source, copy);
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            copy.put(copyValue(entry.getKey(), copies), copyValue(entry.getValue(), copies));
+        }
+        return copy;
+    }
+
+    private interface ClassCopier {
+        Object copy(Object source, IdentityHashMap<Object, Object> copies);
+    }
+
+    /**
+     * Copies ordinary classes: creates an empty instance, remembers it (so cycles back to the source find the copy),
+     * then runs one combined handle that copies every field.
+     */
+    private record FieldCopier(MethodHandle constructor, MethodHandle fields) implements ClassCopier {
+
+        static FieldCopier of(Class<?> type) {
+            if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+                throw new IllegalArgumentException("Cannot deep-copy " + type.getName());
+            }
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+                // (Object target, Object source, IdentityHashMap copies) -> void, with one step per field.
+                MethodHandle fields = MethodHandles.empty(
+                        MethodType.methodType(void.class, Object.class, Object.class, IdentityHashMap.class));
+                for (Class<?> c = type; !isJdkType(c); c = c.getSuperclass()) {
+                    MethodHandles.Lookup declaringLookup = c == type ? lookup : MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+                    for (Field field : c.getDeclaredFields()) {
+                        if (!Modifier.isStatic(field.getModifiers())) {
+                            fields = MethodHandles.foldArguments(fields, fieldCopy(declaringLookup, field));
+                        }
+                    }
+                }
+                return new FieldCopier(constructor, fields);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException(type.getName() + " has no no-argument constructor", e);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot access the fields of " + type.getName(), e);
+            }
+        }
+
+        private static MethodHandle fieldCopy(MethodHandles.Lookup lookup, Field field) throws IllegalAccessException {
+            field.setAccessible(true);
+            MethodHandle getter = lookup.unreflectGetter(field);
+            MethodHandle setter = lookup.unreflectSetter(field);
+            Class<?> fieldType = field.getType();
+            if (fieldType.isPrimitive() || isImmutable(fieldType)) {
+                // target.field = source.field
+                MethodHandle copy = MethodHandles.filterArguments(
+                        setter.asType(MethodType.methodType(void.class, Object.class, fieldType)),
+                        1, getter.asType(MethodType.methodType(fieldType, Object.class)));
+                return MethodHandles.dropArguments(copy, 2, IdentityHashMap.class);
+            }
+            // target.field = copyValue(source.field, copies)
+            MethodHandle copiedValue = MethodHandles.filterArguments(COPY_VALUE, 0,
+                    getter.asType(MethodType.methodType(Object.class, Object.class)));
+            return MethodHandles.collectArguments(
+                    setter.asType(MethodType.methodType(void.class, Object.class, Object.class)), 1, copiedValue);
+        }
+
+        @Override
+        public Object copy(Object source, IdentityHashMap<Object, Object> copies) {
+            try {
+                Object target = constructor.invokeExact();
+                copies.put(source, target);
+                fields.invokeExact(target, source, copies);
+                return target;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Copying " + source.getClass().getName() + " failed", e);
+            }
+        }
+    }
+
+    /**
+     * Copies records, whose fields cannot be written after construction: the components are copied first and passed to
+     * the canonical constructor. A record that (indirectly) refers to itself therefore cannot be copied.
+     */
+    private record RecordCopier(MethodHandle[] accessors, MethodHandle constructor) implements ClassCopier {
+
+        static RecordCopier of(Class<?> type) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                RecordComponent[] components = type.getRecordComponents();
+                MethodHandle[] accessors = new MethodHandle[components.length];
+                Class<?>[] parameterTypes = new Class<?>[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    parameterTypes[i] = components[i].getType();
+                    accessors[i] = lookup.unreflect(components[i].getAccessor())
+                            .asType(MethodType.methodType(Object.class, Object.class));
+                }
+                Constructor<?> canonical = type.getDeclaredConstructor(parameterTypes);
+                MethodHandle constructor = lookup.unreflectConstructor(canonical)
+                        .asSpreader(Object[].class, components.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+                return new RecordCopier(accessors, constructor);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot access the components of " + type.getName(), e);
+            }
+        }
+
+        @Override
+        public Object copy(Object source, IdentityHashMap<Object, Object> copies) {
+            try {
+                Object[] values = new Object[accessors.length];
+                for (int i = 0; i < accessors.length; i++) {
+                    values[i] = copyValue((Object) accessors[i].invokeExact(source), copies);
+                }
+                Object target = constructor.invokeExact(values);
+                copies.put(source, target);
+                return target;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Copying " + source.getClass().getName() + " failed", e);
+            }
+        }
+    }
+}
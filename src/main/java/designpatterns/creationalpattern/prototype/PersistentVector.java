@@ -0,0 +1,334 @@
+package designpatterns.creationalpattern.prototype;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A {@link java.util.List} whose copies share their structure, so that copying it takes constant time.
+ *
+ * <h2>Why it exists</h2>
+ * Cloning a prototype that holds a big `ArrayList` copies every element reference, so the clone costs O(n) time and memory.
+ * With this list, {@link #snapshot()} (used by `BookShop.clone()`) returns a new list that shares everything with the original.
+ * Both lists can then be changed independently; a change copies only the small part of the structure it touches.
+ *
+ * <h2>How it works</h2>
+ * The elements live in the leaves of a tree where every node has up to 32 children (a "bit-partitioned trie"), so even
+ * a list of a billion elements is at most six levels deep. Tree nodes are never modified once they exist. Changing an element
+ * copies the nodes on the path from the root to it (<b>path copying</b>); all other nodes stay shared.
+ * The last, partially filled leaf (the <b>tail</b>) is kept outside the tree, so that appending is usually just an array store.
+ * <ul>
+ *     <li>{@code get}, {@code set}: O(log<sub>32</sub> n), effectively constant.</li>
+ *     <li>{@code add} at the end, {@code remove} of the last element: amortized O(1).</li>
+ *     <li>{@code add}/{@code remove} at index i: O(n - i), because the elements after i have to move. The elements before i stay shared.</li>
+ *     <li>{@link #snapshot()}: O(1).</li>
+ * </ul>
+ * Like `ArrayList`, a single instance is not thread-safe. Different snapshots may be used from different threads, because
+ * they never modify shared nodes.
+ */
+public class PersistentVector<E> extends AbstractList<E> implements RandomAccess, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private transient int size;
+    private transient int shift;
+    private transient Object[] root;
+    private transient Object[] tail;
+    // When true, the tail array may also be referenced by another snapshot (or the tree) and must be copied before writing.
+    private transient boolean tailShared;
+    // Counts every change, including set(), unlike modCount which only counts structural ones.
+    private transient int version;
+
+    public PersistentVector() {
+        clearInternal();
+    }
+
+    public PersistentVector(Collection<? extends E> elements) {
+        this();
+        for (E element : elements) {
+            append(element);
+        }
+    }
+
+    private PersistentVector(PersistentVector<E> source) {
+        this.size = source.size;
+        this.shift = source.shift;
+        this.root = source.root;
+        this.tail = source.tail;
+        this.tailShared = true;
+        this.version = source.version;
+    }
+
+    /**
+     * Returns an independent copy of this list in constant time. The copy and the original share their structure until either is changed.
+     */
+    public PersistentVector<E> snapshot() {
+        tailShared = true;
+        return new PersistentVector<>(this);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A number that changes whenever the list is changed, including by {@code set}. Snapshots start with the version of their source.
+     */
+    public int version() {
+        return version;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index);
+        return (E) leafFor(index)[index & MASK];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        checkIndex(index);
+        if (index >= tailOffset()) {
+            ownTail();
+            E previous = (E) tail[index & MASK];
+            tail[index & MASK] = element;
+            version++;
+            return previous;
+        }
+        E previous = (E) leafFor(index)[index & MASK];
+        root = assoc(shift, root, index, element);
+        version++;
+        return previous;
+    }
+
+    @Override
+    public boolean add(E element) {
+        append(element);
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Object[] moved = truncate(index);
+        append(element);
+        appendAll(moved);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        checkIndex(index);
+        Object[] moved = truncate(index + 1);
+        E removed = (E) leafFor(index)[index & MASK];
+        pop();
+        appendAll(moved);
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        clearInternal();
+        modCount++;
+        version++;
+    }
+
+    // Not overridable, unlike add(), so that the constructors and deserialization do not call into subclasses.
+    private void append(Object element) {
+        int inTail = size - tailOffset();
+        if (inTail < WIDTH) {
+            ownTail();
+            tail[inTail] = element;
+        } else {
+            pushTailIntoTree();
+            tail = new Object[WIDTH];
+            tailShared = false;
+            tail[0] = element;
+        }
+        size++;
+        modCount++;
+        version++;
+    }
+
+    private void clearInternal() {
+        size = 0;
+        shift = BITS;
+        root = new Object[WIDTH];
+        tail = new Object[WIDTH];
+        tailShared = false;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private void ownTail() {
+        if (tailShared) {
+            tail = Arrays.copyOf(tail, WIDTH);
+            tailShared = false;
+        }
+    }
+
+    private Object[] leafFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    private static Object[] assoc(int level, Object[] node, int index, Object element) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = element;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy[child] = assoc(level - BITS, (Object[]) node[child], index, element);
+        }
+        return copy;
+    }
+
+    // The tail is full: move it into the tree, copying only the path to its new position.
+    private void pushTailIntoTree() {
+        Object[] leaf = tail;
+        tailShared = true;
+        if ((size >>> BITS) > (1 << shift)) {
+            Object[] newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, leaf);
+            root = newRoot;
+            shift += BITS;
+        } else {
+            root = pushTail(shift, root, leaf);
+        }
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] leaf) {
+        int child = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        if (level == BITS) {
+            copy[child] = leaf;
+        } else {
+            Object[] existing = (Object[]) parent[child];
+            copy[child] = existing != null ? pushTail(level - BITS, existing, leaf) : newPath(level - BITS, leaf);
+        }
+        return copy;
+    }
+
+    private static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    private void pop() {
+        if (size == 1) {
+            clearInternal();
+            modCount++;
+            version++;
+            return;
+        }
+        if (size - tailOffset() > 1) {
+            ownTail();
+            tail[(size - 1) & MASK] = null;
+        } else {
+            // The tail becomes empty: the last leaf of the tree becomes the new tail.
+            Object[] newTail = leafFor(size - 2);
+            Object[] newRoot = popTail(shift, root);
+            int newShift = shift;
+            if (newRoot == null) {
+                newRoot = new Object[WIDTH];
+            }
+            if (shift > BITS && newRoot[1] == null) {
+                newRoot = (Object[]) newRoot[0];
+                newShift -= BITS;
+            }
+            root = newRoot;
+            shift = newShift;
+            tail = newTail;
+            tailShared = true;
+        }
+        size--;
+        modCount++;
+        version++;
+    }
+
+    private Object[] popTail(int level, Object[] node) {
+        int child = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Object[] newChild = popTail(level - BITS, (Object[]) node[child]);
+            if (newChild == null && child == 0) {
+                return null;
+            }
+            Object[] copy = node.clone();
+            copy[child] = newChild;
+            return copy;
+        } else if (child == 0) {
+            return null;
+        }
+        Object[] copy = node.clone();
+        copy[child] = null;
+        return copy;
+    }
+
+    // Cuts the list down to the given length and returns the removed elements, in order.
+    private Object[] truncate(int length) {
+        Object[] removed = new Object[size - length];
+        for (int i = removed.length - 1; i >= 0; i--) {
+            removed[i] = leafFor(size - 1)[(size - 1) & MASK];
+            pop();
+        }
+        return removed;
+    }
+
+    private void appendAll(Object[] elements) {
+        for (Object element : elements) {
+            append(element);
+        }
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeObject(get(i));
+        }
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        clearInternal();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            append(in.readObject());
+        }
+    }
+}
@@ -25,6 +25,8 @@ package designpatterns.creationalpattern.prototype;
  * A shallow copy of an object copies all of the primitive type fields and the references of the object's fields. It does not create new objects for the referenced fields.
  * In the current `BookShop` example, the `clone` method performs a shallow copy of the `Book` objects. It creates a new `List`, but the `Book` objects inside the list are the same references as in the original object.
  * This means if you were to get a book from the first shop and change its name, the change would be reflected in the second shop as well. However, adding or removing books from one shop's list will not affect the other.
+ * The list is a `PersistentVector`, which shares its structure between the original and the clone, so the clone takes constant time even for a catalog with millions of books;
+ * a later change copies only the few nodes it touches.
  *
  * <h3>Deep Copy</h3>
  * A deep copy, on the other hand, creates a new object and then recursively copies all the objects referenced by the original object.
@@ -35,12 +37,18 @@ package designpatterns.creationalpattern.prototype;
  * public BookShop clone() {
  *     BookShop clone = new BookShop();
  *     for (Book b : getBooks()){
- *         // Assuming Book also implements Cloneable and has a clone() method
  *         clone.getBooks().add(b.clone());
  *     }
  *     return clone;
  * }
  * }</pre>
+ * Writing such a method by hand for every class gets tedious for larger object graphs. `BookShop.deepClone()` uses the
+ * `DeepCopier` instead, which generates the copy code for each class the first time it sees it and also handles
+ * objects that are referenced more than once.
+ *
+ * <h2>Prototype Registry</h2>
+ * An application with many prototypes (one shop template per tenant, for example) keeps them in a `PrototypeRegistry`,
+ * which hands out copies, loads missing prototypes on demand and evicts rarely used ones when it grows beyond its bound.
  */
 public class PrototypeDemo {
     public static void main(String[] args) {
@@ -60,5 +68,30 @@ public class PrototypeDemo {
         System.out.println(first);
         System.out.println("\nCloned Shop:");
         System.out.println(second);
+
+        // The deep clone has its own Book objects, so renaming a book in 'third' leaves 'first' untouched.
+        BookShop third = first.deepClone();
+        third.getBooks().get(0).setName("Renamed Book");
+
+        System.out.println("\nDeep-cloned Shop:");
+        System.out.println(third);
+        System.out.println("First book of the original shop: " + first.getBooks().get(0));
+
+        // A registry of shop templates, bounded by the total number of books it holds.
+        PrototypeRegistry<String, BookShop> templates = new PrototypeRegistry.Builder<String, BookShop>(BookShop::clone)
+                .withMaximumWeight(1_000)
+                .withWeigher(shop -> shop.getBooks().size())
+                .withLoader(name -> {
+                    BookShop template = new BookShop();
+                    template.setShopName(name);
+                    template.loadData();
+                    return template;
+                })
+                .build();
+        // The first request loads the template, the second one only clones it.
+        BookShop branch = templates.get("Tenant Books");
+        BookShop otherBranch = templates.get("Tenant Books");
+        System.out.println("\nShops from the registry: " + branch.getBooks().size() + " and " + otherBranch.getBooks().size()
+                + " books (" + templates.stats() + ")");
     }
 }
@@ -0,0 +1,459 @@
+package designpatterns.creationalpattern.prototype;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * A bounded, thread-safe registry of prototypes. {@link #get(Object)} returns a copy of the registered prototype, loading
+ * the prototype first if it is not registered yet.
+ * <p>
+ * The registry works for any prototype type: it is given a copier ({@code Meal::clone}, {@code BookShop::clone},
+ * {@code DeepCopier::copy}, ...) instead of requiring a common interface, because {@code Meal}, {@code Book} and
+ * {@code BookShop} do not share one.
+ *
+ * <h2>Bound</h2>
+ * Every prototype has a weight, 1 by default or whatever the weigher returns (for example the number of books of a shop).
+ * When the total weight exceeds the maximum, prototypes are evicted until it fits again.
+ *
+ * <h2>Which prototype is evicted</h2>
+ * A plain LRU registry lets a burst of one-off lookups (a crawler walking every tenant's menu) push out the prototypes that
+ * are used all day. This registry uses TinyLFU admission in front of an LRU list instead:
+ * <ul>
+ *     <li>A count-min sketch estimates how often each key was requested recently. It stores 4-bit counters packed into a
+ *     {@code long[]}, so it costs about 8 bytes per entry no matter how many different keys are requested. All counters
+ *     are halved periodically, so old popularity fades.</li>
+ *     <li>When a new prototype does not fit, it is compared with the least recently used one. The one that was requested
+ *     more often stays; the other is evicted. A key seen for the first time therefore never displaces a hot prototype,
+ *     but once it is requested often enough it gets in.</li>
+ * </ul>
+ * Prototypes registered explicitly with {@link #put(Object, Object)} are always admitted; only the least recently used
+ * prototypes make room for them.
+ *
+ * <h2>Concurrency</h2>
+ * The prototypes are held in a {@link ConcurrentHashMap}, so lookups never block. The LRU list and the sketch are guarded by a
+ * lock. A hit only tries to take it to record the access; if another thread holds it, the access is not recorded, which
+ * makes the policy slightly less precise but keeps hits from waiting for each other. Concurrent misses for the same key
+ * call the loader only once.
+ *
+ * @param <K> The key type, for example a meal name or a tenant id.
+ * @param <T> The prototype type.
+ */
+public class PrototypeRegistry<K, T> {
+    private final ConcurrentHashMap<K, Node<K, T>> prototypes = new ConcurrentHashMap<>();
+    private final UnaryOperator<T> copier;
+    private final ToIntFunction<? super T> weigher;
+    private final Function<? super K, ? extends T> loader;
+    private final long maximumWeight;
+
+    private final ReentrantLock policyLock = new ReentrantLock();
+    // Least recently used node first. Guarded by policyLock.
+    private final Node<K, T> lru = new Node<>(null, null, 0);
+    private final FrequencySketch sketch = new FrequencySketch();
+    private long totalWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private PrototypeRegistry(Builder<K, T> builder) {
+        this.copier = builder.copier;
+        this.weigher = builder.weigher;
+        this.loader = builder.loader;
+        this.maximumWeight = builder.maximumWeight;
+        lru.previous = lru;
+        lru.next = lru;
+    }
+
+    /**
+     * Returns a copy of the prototype for the key. If there is none, it is loaded, offered to the registry and a copy of it
+     * returned, even if the registry decided not to keep it.
+     *
+     * @return A copy of the prototype, or {@code null} if there is none and the loader returned {@code null} (or there is
+     * no loader).
+     */
+    public T get(K key) {
+        Node<K, T> node = prototypes.get(key);
+        if (node != null) {
+            hits.increment();
+            recordHit(node);
+            return copier.apply(node.prototype);
+        }
+        misses.increment();
+        if (loader == null) {
+            recordMiss(key);
+            return null;
+        }
+        // Holds the node if this call created it. A generic array cannot be created directly, hence the cast.
+        @SuppressWarnings("unchecked")
+        Node<K, T>[] created = (Node<K, T>[]) new Node<?, ?>[1];
+        node = prototypes.computeIfAbsent(key, k -> {
+            T loaded = loader.apply(k);
+            loads.increment();
+            return created[0] = loaded == null ? null : new Node<>(k, loaded, weigh(loaded));
+        });
+        if (node == null) {
+            recordMiss(key);
+            return null;
+        }
+        if (created[0] == node) {
+            admit(node);
+        } else {
+            // Another thread loaded it in the meantime.
+            recordHit(node);
+        }
+        return copier.apply(node.prototype);
+    }
+
+    /**
+     * @return The registered prototype itself, without copying or loading it, or {@code null}.
+     */
+    public T getPrototype(K key) {
+        Node<K, T> node = prototypes.get(key);
+        return node == null ? null : node.prototype;
+    }
+
+    /**
+     * Registers a prototype, replacing the one with the same key. The prototype is kept; the least recently used
+     * prototypes are evicted if it does not fit.
+     */
+    public void put(K key, T prototype) {
+        Objects.requireNonNull(prototype, "prototype");
+        Node<K, T> node = new Node<>(key, prototype, weigh(prototype));
+        Node<K, T> replaced = prototypes.put(key, node);
+        policyLock.lock();
+        try {
+            if (replaced != null) {
+                unlink(replaced);
+            }
+            sketch.increment(key.hashCode());
+            if (prototypes.get(key) != node) {
+                // Removed or replaced before it could be linked, like in admit().
+                return;
+            }
+            if (node.weight > maximumWeight) {
+                // Heavier than the whole registry; keep the others.
+                prototypes.remove(key, node);
+                evictions.increment();
+                return;
+            }
+            link(node);
+            while (totalWeight > maximumWeight) {
+                evict(lru.next);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Removes the prototype for the key. Copies made from it are not affected.
+     */
+    public void remove(K key) {
+        Node<K, T> node = prototypes.remove(key);
+        if (node != null) {
+            policyLock.lock();
+            try {
+                unlink(node);
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    public void clear() {
+        policyLock.lock();
+        try {
+            for (Node<K, T> node = lru.next; node != lru; node = lru.next) {
+                prototypes.remove(node.key, node);
+                unlink(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public boolean contains(K key) {
+        return prototypes.containsKey(key);
+    }
+
+    public int size() {
+        return prototypes.size();
+    }
+
+    /**
+     * @return The sum of the weights of all registered prototypes.
+     */
+    public long weight() {
+        policyLock.lock();
+        try {
+            return totalWeight;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), loads.sum(), evictions.sum());
+    }
+
+    private void recordHit(Node<K, T> node) {
+        if (policyLock.tryLock()) {
+            try {
+                sketch.increment(node.key.hashCode());
+                if (node.linked()) {
+                    unlink(node);
+                    link(node);
+                }
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    private void recordMiss(K key) {
+        if (policyLock.tryLock()) {
+            try {
+                sketch.increment(key.hashCode());
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Links a freshly loaded node and applies TinyLFU admission: while the registry is too heavy, the new node and the
+     * least recently used one are compared, and the one with the lower estimated frequency is evicted.
+     */
+    private void admit(Node<K, T> candidate) {
+        policyLock.lock();
+        try {
+            sketch.ensureCapacity(prototypes.size());
+            sketch.increment(candidate.key.hashCode());
+            if (prototypes.get(candidate.key) != candidate) {
+                // Removed or replaced before it could be linked.
+                return;
+            }
+            if (candidate.weight > maximumWeight) {
+                prototypes.remove(candidate.key, candidate);
+                evictions.increment();
+                return;
+            }
+            link(candidate);
+            int candidateFrequency = sketch.frequency(candidate.key.hashCode());
+            while (totalWeight > maximumWeight) {
+                Node<K, T> victim = lru.next;
+                if (victim == candidate || candidateFrequency <= sketch.frequency(victim.key.hashCode())) {
+                    evict(candidate);
+                    return;
+                }
+                evict(victim);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void evict(Node<K, T> node) {
+        unlink(node);
+        prototypes.remove(node.key, node);
+        evictions.increment();
+    }
+
+    private void link(Node<K, T> node) {
+        node.previous = lru.previous;
+        node.next = lru;
+        lru.previous.next = node;
+        lru.previous = node;
+        totalWeight += node.weight;
+    }
+
+    private void unlink(Node<K, T> node) {
+        if (node.linked()) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+            totalWeight -= node.weight;
+        }
+    }
+
+    private int weigh(T prototype) {
+        int weight = weigher.applyAsInt(prototype);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight " + weight + " for " + prototype);
+        }
+        return weight;
+    }
+
+    /**
+     * Usage counters since the registry was created.
+     *
+     * @param hits      Lookups that found a registered prototype.
+     * @param misses    Lookups that did not.
+     * @param loads     Calls of the loader.
+     * @param evictions Prototypes evicted to keep the registry within its maximum weight, including loaded prototypes that
+     *                  were not admitted.
+     */
+    public record Stats(long hits, long misses, long loads, long evictions) {
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 1.0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d hits, %d misses (hit rate %.1f%%), %d loads, %d evictions",
+                    hits, misses, hitRate() * 100, loads, evictions);
+        }
+    }
+
+    private static final class Node<K, T> {
+        final K key;
+        final T prototype;
+        final int weight;
+        // Guarded by policyLock; both null while the node is not in the LRU list.
+        Node<K, T> previous;
+        Node<K, T> next;
+
+        Node(K key, T prototype, int weight) {
+            this.key = key;
+            this.prototype = prototype;
+            this.weight = weight;
+        }
+
+        boolean linked() {
+            return next != null;
+        }
+    }
+
+    /**
+     * A count-min sketch with four 4-bit counters per key, sixteen counters packed into each {@code long}. Estimates are
+     * never too low, only occasionally too high when keys collide. After ten increments per table slot all counters are
+     * halved, so the sketch reflects recent popularity and never saturates.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final int MAX_SLOTS = 1 << 24;
+
+        private long[] table = new long[16];
+        private int sampleSize = 10 * table.length;
+        private int additions;
+
+        /**
+         * Grows the table to at least one slot per entry. Growing forgets all counts, which is rare: the size doubles.
+         */
+        void ensureCapacity(int entries) {
+            if (entries > table.length && table.length < MAX_SLOTS) {
+                table = new long[Math.min(MAX_SLOTS, Integer.highestOneBit(entries - 1) << 1)];
+                sampleSize = 10 * table.length;
+                additions = 0;
+            }
+        }
+
+        int frequency(int hashCode) {
+            int hash = spread(hashCode);
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int shift = (start + i) << 2;
+                frequency = Math.min(frequency, (int) ((table[slot(hash, i)] >>> shift) & 0xF));
+            }
+            return frequency;
+        }
+
+        void increment(int hashCode) {
+            int hash = spread(hashCode);
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int slot = slot(hash, i);
+                int shift = (start + i) << 2;
+                if (((table[slot] >>> shift) & 0xF) != 0xF) {
+                    table[slot] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                }
+                additions = sampleSize / 2;
+            }
+        }
+
+        private int slot(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & (table.length - 1);
+        }
+
+        private static int spread(int hashCode) {
+            int h = hashCode * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Configures a {@link PrototypeRegistry}. Only the copier is required; without a maximum the registry is unbounded.
+     */
+    public static class Builder<K, T> {
+        private final UnaryOperator<T> copier;
+        private ToIntFunction<? super T> weigher = prototype -> 1;
+        private Function<? super K, ? extends T> loader;
+        private long maximumWeight = Long.MAX_VALUE;
+
+        /**
+         * @param copier Creates the copy that {@link #get(Object)} returns, for example {@code Meal::clone}.
+         */
+        public Builder(UnaryOperator<T> copier) {
+            this.copier = Objects.requireNonNull(copier, "copier");
+        }
+
+        /**
+         * Limits the number of prototypes. Same as {@link #withMaximumWeight(long)} when every prototype weighs 1.
+         */
+        public Builder<K, T> withMaximumSize(long maximumSize) {
+            return withMaximumWeight(maximumSize);
+        }
+
+        public Builder<K, T> withMaximumWeight(long maximumWeight) {
+            if (maximumWeight < 0) {
+                throw new IllegalArgumentException("Negative maximum weight: " + maximumWeight);
+            }
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * @param weigher Returns the weight of a prototype, for example the number of its elements. Called once, when the
+         *                prototype is registered.
+         */
+        public Builder<K, T> withWeigher(ToIntFunction<? super T> weigher) {
+            this.weigher = Objects.requireNonNull(weigher, "weigher");
+            return this;
+        }
+
+        /**
+         * @param loader Creates the prototype for a key that is not registered, or returns {@code null} if there is none.
+         */
+        public Builder<K, T> withLoader(Function<? super K, ? extends T> loader) {
+            this.loader = loader;
+            return this;
+        }
+
+        public PrototypeRegistry<K, T> build() {
+            return new PrototypeRegistry<>(this);
+        }
+    }
+}
@@ -6,6 +6,8 @@ import designpatterns.creationalpattern.restaurantapp.kitchen.MexicanRestaurant;
 import designpatterns.creationalpattern.restaurantapp.kitchen.Restaurant;
 import designpatterns.creationalpattern.restaurantapp.service.MenuService;
 
+import java.time.Duration;
+
 /**
  * This is the main client class that runs the restaurant application. It demonstrates how
  * all five major creational design patterns can work together in a project with a realistic
@@ -42,7 +44,7 @@ import designpatterns.creationalpattern.restaurantapp.service.MenuService;
  * </dl>
  */
 public class RestaurantApp {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
         System.out.println("--- Welcome to the Restaurant! ---\n");
 
         // ## Singleton Pattern Demonstration ##
@@ -85,5 +87,11 @@ public class RestaurantApp {
 
         Restaurant mexicanRestaurant = new MexicanRestaurant();
         mexicanRestaurant.serveMeal();
+
+        System.out.println();
+
+        // The same meal, but the main course and the dessert are prepared at the same time on virtual threads.
+        System.out.println("5. Serving main course and dessert in parallel...");
+        italianRestaurant.serveMealInParallel(Duration.ofSeconds(1));
     }
 }
@@ -0,0 +1,66 @@
+package designpatterns.creationalpattern.restaurantapp.analytics;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+
+/**
+ * Packs a {@link Meal} into a single {@code long} and back.
+ *
+ * <h2>Layout</h2>
+ * Each part is replaced by its {@link MealDictionary} id, and the four 16-bit ids are packed side by side:
+ * <pre>
+ * bits 63..48  main course
+ * bits 47..32  side dish
+ * bits 31..16  drink
+ * bits 15..0   dessert
+ * </pre>
+ * A meal thus takes 8 bytes instead of a {@code Meal} object with four references (about 32 bytes, plus the strings when they
+ * are not shared). Two meals have the same code exactly when they are {@link Meal#equals(Object) equal}, and one part can
+ * be tested with a shift and a mask, see {@link #partId(long, MealPart)}.
+ */
+public class MealCodec {
+    private static final long PART_MASK = 0xFFFF;
+
+    private final MealDictionary dictionary;
+
+    public MealCodec() {
+        this(new MealDictionary());
+    }
+
+    public MealCodec(MealDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public MealDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Encodes the meal, assigning ids to parts that the dictionary does not know yet.
+     */
+    public long encode(Meal meal) {
+        long code = 0;
+        for (MealPart part : MealPart.values()) {
+            code |= (long) dictionary.idOf(part, part.of(meal)) << part.shift();
+        }
+        return code;
+    }
+
+    /**
+     * Creates a {@code Meal} from a code. It goes through {@code MealBuilder.build()}, so it is shared when meal interning
+     * is on.
+     */
+    public Meal decode(long code) {
+        return new Meal.MealBuilder(dictionary.valueOf(MealPart.MAIN_COURSE, partId(code, MealPart.MAIN_COURSE)))
+                .withSideDish(dictionary.valueOf(MealPart.SIDE_DISH, partId(code, MealPart.SIDE_DISH)))
+                .withDrink(dictionary.valueOf(MealPart.DRINK, partId(code, MealPart.DRINK)))
+                .withDessert(dictionary.valueOf(MealPart.DESSERT, partId(code, MealPart.DESSERT)))
+                .build();
+    }
+
+    /**
+     * @return The dictionary id of one part of an encoded meal.
+     */
+    public static int partId(long code, MealPart part) {
+        return (int) ((code >>> part.shift()) & PART_MASK);
+    }
+}
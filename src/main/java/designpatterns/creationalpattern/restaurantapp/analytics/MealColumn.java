@@ -0,0 +1,161 @@
+package designpatterns.creationalpattern.restaurantapp.analytics;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A list of meals, for example the order history, stored as one {@code long} per meal (see {@link MealCodec}).
+ *
+ * <h2>Meals on demand</h2>
+ * {@link #get(int)} decodes a {@code Meal} each time it is called; nothing but the {@code long[]} is kept. Code that
+ * processes many orders should work with {@link #codeAt(int)} instead.
+ *
+ * <h2>Aggregations</h2>
+ * {@link #count(MealPart, String)} and {@link #countsBy(MealPart)} look up the dictionary id once and then run a plain loop
+ * over the {@code long[]}: a shift, a mask and a compare per order, no objects and no strings. The loop reads memory
+ * sequentially and is simple enough for the JIT to unroll; a hundred million orders are 800 MB and take a fraction of a
+ * second.
+ */
+public class MealColumn extends AbstractList<Meal> implements RandomAccess {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final MealCodec codec;
+    private long[] codes;
+    private int size;
+
+    public MealColumn(MealCodec codec) {
+        this(codec, INITIAL_CAPACITY);
+    }
+
+    public MealColumn(MealCodec codec, int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+        }
+        this.codec = Objects.requireNonNull(codec, "codec");
+        this.codes = new long[initialCapacity];
+    }
+
+    public MealCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Meal get(int index) {
+        return codec.decode(codeAt(index));
+    }
+
+    public long codeAt(int index) {
+        Objects.checkIndex(index, size);
+        return codes[index];
+    }
+
+    @Override
+    public Meal set(int index, Meal meal) {
+        Meal previous = get(index);
+        codes[index] = codec.encode(meal);
+        return previous;
+    }
+
+    @Override
+    public boolean add(Meal meal) {
+        addCode(codec.encode(meal));
+        return true;
+    }
+
+    /**
+     * Appends a meal that was already encoded with this column's codec.
+     */
+    public void addCode(long code) {
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, Math.max(INITIAL_CAPACITY, size + (size >> 1)));
+        }
+        codes[size++] = code;
+        modCount++;
+    }
+
+    @Override
+    public void add(int index, Meal meal) {
+        Objects.checkIndex(index, size + 1);
+        long code = codec.encode(meal);
+        addCode(0);
+        System.arraycopy(codes, index, codes, index + 1, size - 1 - index);
+        codes[index] = code;
+    }
+
+    @Override
+    public Meal remove(int index) {
+        Meal removed = get(index);
+        System.arraycopy(codes, index + 1, codes, index, size - 1 - index);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * @return The number of meals whose part has the given value; {@code null} counts meals without that part.
+     */
+    public long count(MealPart part, String value) {
+        int id = codec.getDictionary().find(part, value);
+        if (id < 0) {
+            return 0;
+        }
+        long[] codes = this.codes;
+        int size = this.size;
+        long mask = 0xFFFFL << part.shift();
+        long wanted = (long) id << part.shift();
+        long count = 0;
+        for (int i = 0; i < size; i++) {
+            // Branch-free, so the loop runs at the same speed however the matches are distributed.
+            count += (codes[i] & mask) == wanted ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * @return How many meals have each value of the part, most frequent first. A {@code null} key counts meals without
+     * that part.
+     */
+    public Map<String, Long> countsBy(MealPart part) {
+        MealDictionary dictionary = codec.getDictionary();
+        long[] counts = new long[dictionary.size(part) + 1];
+        long[] codes = this.codes;
+        int size = this.size;
+        int shift = part.shift();
+        for (int i = 0; i < size; i++) {
+            counts[(int) ((codes[i] >>> shift) & 0xFFFF)]++;
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        Integer[] ids = new Integer[counts.length];
+        Arrays.setAll(ids, id -> id);
+        Arrays.sort(ids, (a, b) -> Long.compare(counts[b], counts[a]));
+        for (int id : ids) {
+            if (counts[id] > 0) {
+                result.put(dictionary.valueOf(part, id), counts[id]);
+            }
+        }
+        return result;
+    }
+
+    public void trimToSize() {
+        if (codes.length > size) {
+            codes = Arrays.copyOf(codes, size);
+        }
+    }
+}
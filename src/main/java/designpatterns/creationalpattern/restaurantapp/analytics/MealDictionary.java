@@ -0,0 +1,118 @@
+package designpatterns.creationalpattern.restaurantapp.analytics;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns a small id to every distinct value of each {@link MealPart}: "Coke" might be drink 3 and "Fries" side dish 1.
+ * <p>
+ * Ids are numbered per part from 1; id {@value #NULL_ID} stands for a missing part (a meal without dessert). A part can have
+ * at most {@value #MAX_ID} distinct values, so an id fits into 16 bits. Ids are never reused or changed, so codes written
+ * with this dictionary stay valid for as long as it lives.
+ * <p>
+ * Thread-safe. Looking up the id of a known value does not lock; only assigning a new id does.
+ */
+public class MealDictionary {
+    public static final int NULL_ID = 0;
+    public static final int MAX_ID = 0xFFFF;
+
+    private final Map<MealPart, PartValues> parts = new EnumMap<>(MealPart.class);
+
+    public MealDictionary() {
+        for (MealPart part : MealPart.values()) {
+            parts.put(part, new PartValues(part));
+        }
+    }
+
+    /**
+     * Returns the id of the value, assigning the next free id if the value is new.
+     *
+     * @throws IllegalStateException if the part already has {@value #MAX_ID} distinct values.
+     */
+    public int idOf(MealPart part, String value) {
+        return parts.get(part).idOf(value);
+    }
+
+    /**
+     * @return The id of the value, or -1 if it has none. Never assigns an id.
+     */
+    public int find(MealPart part, String value) {
+        return parts.get(part).find(value);
+    }
+
+    /**
+     * @return The value with the given id, {@code null} for {@link #NULL_ID}.
+     * @throws IllegalArgumentException if no value has that id.
+     */
+    public String valueOf(MealPart part, int id) {
+        return parts.get(part).valueOf(id);
+    }
+
+    /**
+     * @return The number of distinct values of the part, not counting {@code null}.
+     */
+    public int size(MealPart part) {
+        return parts.get(part).count;
+    }
+
+    private static final class PartValues {
+        private final MealPart part;
+        private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+        private volatile String[] values = new String[16];
+        // Highest id assigned. Written after values and before the id is put into ids, so a reader that gets an id from
+        // ids (or from a code encoded with it) also sees the count and the value.
+        private volatile int count;
+
+        PartValues(MealPart part) {
+            this.part = part;
+        }
+
+        int idOf(String value) {
+            if (value == null) {
+                return NULL_ID;
+            }
+            Integer id = ids.get(value);
+            return id != null ? id : assign(value);
+        }
+
+        int find(String value) {
+            if (value == null) {
+                return NULL_ID;
+            }
+            Integer id = ids.get(value);
+            return id != null ? id : -1;
+        }
+
+        String valueOf(int id) {
+            if (id == NULL_ID) {
+                return null;
+            }
+            if (id < 0 || id > count) {
+                throw new IllegalArgumentException("Unknown " + part + " id " + id);
+            }
+            return values[id];
+        }
+
+        private synchronized int assign(String value) {
+            Integer existing = ids.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            int id = count + 1;
+            if (id > MAX_ID) {
+                throw new IllegalStateException("More than " + MAX_ID + " distinct values for " + part);
+            }
+            String[] current = values;
+            if (id == current.length) {
+                current = Arrays.copyOf(current, Math.min(current.length * 2, MAX_ID + 1));
+            }
+            current[id] = value;
+            values = current;
+            count = id;
+            ids.put(value, id);
+            return id;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package designpatterns.creationalpattern.restaurantapp.analytics;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+
+import java.util.function.Function;
+
+/**
+ * The four parts of a {@link Meal}, each with the 16 bits it occupies in a code of the {@link MealCodec}.
+ */
+public enum MealPart {
+    MAIN_COURSE(48, Meal::getMainCourse),
+    SIDE_DISH(32, Meal::getSideDish),
+    DRINK(16, Meal::getDrink),
+    DESSERT(0, Meal::getDessert);
+
+    private final int shift;
+    private final Function<Meal, String> getter;
+
+    MealPart(int shift, Function<Meal, String> getter) {
+        this.shift = shift;
+        this.getter = getter;
+    }
+
+    /**
+     * @return The position of the part's lowest bit in a meal code.
+     */
+    public int shift() {
+        return shift;
+    }
+
+    public String of(Meal meal) {
+        return getter.apply(meal);
+    }
+}
@@ -0,0 +1,192 @@
+package designpatterns.creationalpattern.restaurantapp.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One file of the {@link OrderJournal}, memory-mapped read-write at its full, preallocated size.
+ * <p>
+ * A record is a {@value #HEADER_SIZE}-byte header followed by the encoded meal:
+ * <pre>
+ * int   length     payload length in bytes, always at least 4; 0 marks the end of the records
+ * int   crc        CRC-32C of sequence, timestamp and payload
+ * long  sequence   1 for the first order ever journaled, then counting up without gaps
+ * long  timestamp  epoch milliseconds when the order was journaled
+ * byte[length]     the meal, see MealEncoding
+ * </pre>
+ * The unused rest of the file is zero, because a new file is filled with zeros and recovery zeroes everything behind the
+ * last valid record.
+ */
+final class JournalSegment {
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+    private static final String PREFIX = "orders-";
+    private static final String SUFFIX = ".journal";
+
+    final Path file;
+    final long firstSequence;
+    final MappedByteBuffer buffer;
+    // End of the last record. Written only by the appending thread while it holds the journal lock.
+    int position;
+    // End of the part that has been forced to disk. Used only by the flusher.
+    int flushedPosition;
+
+    private JournalSegment(Path file, long firstSequence, MappedByteBuffer buffer) {
+        this.file = file;
+        this.firstSequence = firstSequence;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates and maps a new segment file. The file's size and its directory entry are forced to disk before it is used,
+     * so that a power failure cannot lose the whole file while its records were already reported durable.
+     */
+    static JournalSegment create(Path directory, long firstSequence, int size) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+        JournalSegment segment;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // Mapping beyond the end of the file extends it with zeros.
+            segment = new JournalSegment(file, firstSequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            channel.force(true);
+        }
+        forceDirectory(directory);
+        return segment;
+    }
+
+    /**
+     * Forces the directory's entries to disk. Platforms that cannot open a directory as a file, such as Windows, do not
+     * support this, and the step is skipped there.
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    static JournalSegment open(Path file) throws IOException {
+        long firstSequence = firstSequenceOf(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Journal segment too large: " + file);
+            }
+            return new JournalSegment(file, firstSequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return The first sequence number of a segment file, or -1 if the file name is not one of a segment.
+     */
+    static long firstSequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Checks the records from the start of the file. Stops at the end marker, at the end of the file, or at the first
+     * record that is cut off, fails its CRC check or does not carry the expected sequence number.
+     *
+     * @return The number of valid records; {@link #position} is set to the end of the last one.
+     */
+    long recover(CRC32C crc) {
+        int index = 0;
+        long sequence = firstSequence;
+        while (true) {
+            int next = validRecordEnd(index, sequence, crc);
+            if (next < 0) {
+                break;
+            }
+            index = next;
+            sequence++;
+        }
+        position = index;
+        flushedPosition = index;
+        return sequence - firstSequence;
+    }
+
+    /**
+     * Overwrites everything behind the last valid record with zeros and forces the change to disk, so that a torn or
+     * corrupt tail can never be mistaken for records later.
+     */
+    void truncateTail() {
+        boolean dirty = false;
+        for (int i = position; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+                dirty = true;
+            }
+        }
+        if (dirty) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * @return The index after the record at {@code index}, or -1 if there is no valid record with that sequence there.
+     */
+    int validRecordEnd(int index, long expectedSequence, CRC32C crc) {
+        if (index + HEADER_SIZE > buffer.capacity()) {
+            return -1;
+        }
+        int length = buffer.getInt(index);
+        if (length < 4 || length > buffer.capacity() - index - HEADER_SIZE) {
+            return -1;
+        }
+        if (buffer.getLong(index + 8) != expectedSequence) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(buffer.slice(index + 8, 16 + length));
+        if ((int) crc.getValue() != buffer.getInt(index + 4)) {
+            return -1;
+        }
+        return index + HEADER_SIZE + length;
+    }
+
+    /**
+     * Writes a record at {@link #position} and moves the position behind it. The caller checked that it fits.
+     */
+    void write(long sequence, long timestamp, byte[][] parts, int payloadSize, CRC32C crc) {
+        int index = position;
+        buffer.putLong(index + 8, sequence);
+        buffer.putLong(index + 16, timestamp);
+        MealEncoding.write(buffer, index + HEADER_SIZE, parts);
+        crc.reset();
+        crc.update(buffer.slice(index + 8, 16 + payloadSize));
+        buffer.putInt(index + 4, (int) crc.getValue());
+        buffer.putInt(index, payloadSize);
+        position = index + HEADER_SIZE + payloadSize;
+    }
+
+    /**
+     * Forces the records written since the last call to disk.
+     *
+     * @param end The position up to which records are complete.
+     */
+    void force(int end) {
+        if (end > flushedPosition) {
+            buffer.force(flushedPosition, end - flushedPosition);
+            flushedPosition = end;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package designpatterns.creationalpattern.restaurantapp.journal;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary form of a {@link Meal} in the journal: main course, side dish, drink and dessert, each as a varint of its
+ * UTF-8 length plus one (0 for {@code null}) followed by the bytes. A typical meal takes 40 to 60 bytes.
+ */
+final class MealEncoding {
+    private MealEncoding() {
+    }
+
+    /**
+     * @return The parts of the meal as UTF-8 bytes, {@code null} where a part is missing.
+     */
+    static byte[][] parts(Meal meal) {
+        return new byte[][]{bytes(meal.getMainCourse()), bytes(meal.getSideDish()), bytes(meal.getDrink()),
+                bytes(meal.getDessert())};
+    }
+
+    static int size(byte[][] parts) {
+        int size = 0;
+        for (byte[] part : parts) {
+            int length = part == null ? 0 : part.length + 1;
+            size += varintSize(length) + (part == null ? 0 : part.length);
+        }
+        return size;
+    }
+
+    /**
+     * Writes the parts at the given index.
+     *
+     * @return The index after the last written byte.
+     */
+    static int write(ByteBuffer buffer, int index, byte[][] parts) {
+        for (byte[] part : parts) {
+            int length = part == null ? 0 : part.length + 1;
+            while ((length & ~0x7F) != 0) {
+                buffer.put(index++, (byte) ((length & 0x7F) | 0x80));
+                length >>>= 7;
+            }
+            buffer.put(index++, (byte) length);
+            if (part != null) {
+                buffer.put(index, part);
+                index += part.length;
+            }
+        }
+        return index;
+    }
+
+    static Meal read(ByteBuffer buffer, int index) {
+        String[] parts = new String[4];
+        for (int i = 0; i < parts.length; i++) {
+            int length = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(index++);
+                length |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (length > 0) {
+                byte[] bytes = new byte[length - 1];
+                buffer.get(index, bytes);
+                index += bytes.length;
+                parts[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return new Meal.MealBuilder(parts[0]).withSideDish(parts[1]).withDrink(parts[2]).withDessert(parts[3]).build();
+    }
+
+    private static byte[] bytes(String part) {
+        return part == null ? null : part.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int varintSize(int value) {
+        return (38 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+    }
+}
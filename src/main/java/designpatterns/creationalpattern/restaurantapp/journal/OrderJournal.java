@@ -0,0 +1,398 @@
+package designpatterns.creationalpattern.restaurantapp.journal;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only, durable log of served orders.
+ *
+ * <h2>Segments</h2>
+ * The journal is a directory of segment files ({@code orders-<first sequence>.journal}), each preallocated to the segment
+ * size and memory-mapped. Appending an order writes one record into the mapped file (see {@link JournalSegment} for the
+ * layout): no system call, no copy through a stream. When a segment is full, the next one is created and the journal
+ * "rolls" over to it.
+ *
+ * <h2>Group commit</h2>
+ * Writing into the mapping makes an order visible to the operating system, which survives a crash of the JVM, but not yet a
+ * power failure. A background flusher thread forces the written range to disk every commit interval, covering all orders
+ * appended in that interval with one {@code fsync}. {@link #append(Meal)} therefore never waits for the disk. A caller that
+ * must know an order is on disk calls {@link #awaitDurable(long)}, which wakes the flusher at once; callers waiting at the
+ * same time share one flush.
+ *
+ * <h2>Recovery</h2>
+ * Opening a journal checks every record of every segment: the length must fit, the CRC-32C must match and the sequence
+ * numbers must continue without gaps. Everything from the first bad record on, typically a record torn by a crash while it
+ * was being written, is dropped: the rest of that segment is zeroed and later segments are renamed to {@code *.corrupt},
+ * so nothing is deleted without a trace. Appending continues behind the last good record.
+ * <p>
+ * The journal starts at its lowest segment, so old segments may be archived or deleted while the journal is closed:
+ * sequence numbers then continue from the remaining ones. Only a gap between segments counts as damage.
+ *
+ * <h2>Replay</h2>
+ * {@link #replay(long, OrderVisitor)} reads the records sequentially straight from the mapped segments and passes each
+ * order to a visitor. It can run while orders are being appended and sees all orders appended before it started.
+ */
+public class OrderJournal implements Closeable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 5;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long commitIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final CRC32C crc = new CRC32C();
+    // All guarded by lock.
+    private final List<JournalSegment> segments = new ArrayList<>();
+    // Full segments the flusher has not forced completely yet.
+    private final List<JournalSegment> sealed = new ArrayList<>();
+    private JournalSegment current;
+    private long lastSequence;
+    private long durableSequence;
+    private boolean flushRequested;
+    private boolean closed;
+    private IOException flushFailure;
+
+    private final Thread flusher;
+
+    /**
+     * Opens the journal in the directory with the default segment size and commit interval, creating it if needed.
+     */
+    public OrderJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the journal in the directory, creating it if needed, and recovers it if the last run did not close it cleanly.
+     *
+     * @param segmentSize    Size of each segment file in bytes.
+     * @param commitInterval How long an order may stay in memory before it is forced to disk.
+     */
+    public OrderJournal(Path directory, int segmentSize, long commitInterval, TimeUnit unit) throws IOException {
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("Segment size must be at least 4096 bytes: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.commitIntervalNanos = unit.toNanos(commitInterval);
+        Files.createDirectories(directory);
+        recover();
+        flusher = Thread.ofPlatform().daemon().name("order-journal-flusher").start(this::runFlusher);
+    }
+
+    /**
+     * Appends an order. Returns as soon as the order is written to the mapped segment, without waiting for the disk.
+     *
+     * @return The sequence number of the order.
+     * @throws UncheckedIOException if a new segment cannot be created.
+     */
+    public long append(Meal meal) {
+        byte[][] parts = MealEncoding.parts(meal);
+        int payloadSize = MealEncoding.size(parts);
+        int recordSize = JournalSegment.HEADER_SIZE + payloadSize;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Order does not fit into a segment: " + recordSize + " bytes");
+        }
+        long timestamp = System.currentTimeMillis();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            long sequence = lastSequence + 1;
+            if (lastSequence == durableSequence) {
+                // The flusher is idle; start the commit interval.
+                flushNeeded.signal();
+            }
+            if (current.position + recordSize > current.capacity()) {
+                roll(sequence);
+            }
+            current.write(sequence, timestamp, parts, payloadSize, crc);
+            lastSequence = sequence;
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the order with the given sequence number, and all orders before it, are on disk.
+     *
+     * @throws IOException if forcing the journal to disk failed.
+     */
+    public void awaitDurable(long sequence) throws IOException, InterruptedException {
+        lock.lock();
+        try {
+            if (sequence > lastSequence) {
+                throw new IllegalArgumentException("Sequence " + sequence + " has not been appended yet");
+            }
+            while (durableSequence < sequence) {
+                if (flushFailure != null) {
+                    throw flushFailure;
+                }
+                if (closed && !flusher.isAlive()) {
+                    throw new IllegalStateException("Journal is closed");
+                }
+                flushRequested = true;
+                flushNeeded.signal();
+                flushed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every order appended so far is on disk.
+     */
+    public void flush() throws IOException, InterruptedException {
+        awaitDurable(getLastSequence());
+    }
+
+    /**
+     * Passes every order with a sequence number of at least {@code fromSequence} to the visitor, in order.
+     *
+     * @return The number of orders visited.
+     */
+    public long replay(long fromSequence, OrderVisitor visitor) {
+        List<JournalSegment> snapshot;
+        int currentEnd;
+        lock.lock();
+        try {
+            snapshot = List.copyOf(segments);
+            currentEnd = current.position;
+        } finally {
+            lock.unlock();
+        }
+        CRC32C replayCrc = new CRC32C();
+        long visited = 0;
+        for (int s = 0; s < snapshot.size(); s++) {
+            JournalSegment segment = snapshot.get(s);
+            boolean last = s == snapshot.size() - 1;
+            if (!last && snapshot.get(s + 1).firstSequence <= fromSequence) {
+                continue;
+            }
+            // Sealed segments are never written again; the current one only up to where it was when the replay started.
+            int end = last ? currentEnd : segment.position;
+            int index = 0;
+            for (long sequence = segment.firstSequence; index < end; sequence++) {
+                int next = segment.validRecordEnd(index, sequence, replayCrc);
+                if (next < 0) {
+                    throw new IllegalStateException("Corrupt record " + sequence + " in " + segment.file);
+                }
+                if (sequence >= fromSequence) {
+                    visitor.order(sequence, segment.buffer.getLong(index + 16),
+                            MealEncoding.read(segment.buffer, index + JournalSegment.HEADER_SIZE));
+                    visited++;
+                }
+                index = next;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * @return The sequence number of the last appended order, 0 if there is none.
+     */
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The sequence number up to which all orders are known to be on disk.
+     */
+    public long getDurableSequence() {
+        lock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Forces all appended orders to disk and stops the flusher. Appending afterwards fails.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            flushNeeded.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing the journal", e);
+        }
+        if (flushFailure != null) {
+            throw flushFailure;
+        }
+    }
+
+    /**
+     * Receives the orders of a {@link #replay(long, OrderVisitor)}.
+     */
+    @FunctionalInterface
+    public interface OrderVisitor {
+        void order(long sequence, long timestamp, Meal meal);
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> JournalSegment.firstSequenceOf(file) >= 0)
+                    .sorted(Comparator.comparingLong(JournalSegment::firstSequenceOf))
+                    .toList();
+        }
+        // Older segments may have been removed; the journal starts with the lowest one left.
+        long expected = files.isEmpty() ? 1 : JournalSegment.firstSequenceOf(files.get(0));
+        boolean intact = true;
+        for (Path file : files) {
+            if (intact && JournalSegment.firstSequenceOf(file) == expected) {
+                JournalSegment segment = JournalSegment.open(file);
+                expected += segment.recover(crc);
+                segments.add(segment);
+                if (!isEndOfRecords(segment)) {
+                    // A bad record inside the segment: keep what is valid, drop the rest.
+                    segment.truncateTail();
+                    intact = false;
+                }
+            } else {
+                Files.move(file, file.resolveSibling(file.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+                intact = false;
+            }
+        }
+        lastSequence = expected - 1;
+        durableSequence = lastSequence;
+        if (segments.isEmpty()) {
+            current = JournalSegment.create(directory, 1, segmentSize);
+            segments.add(current);
+        } else {
+            current = segments.get(segments.size() - 1);
+            // Appends continue here; remove whatever a record torn by a crash left behind the end marker.
+            current.truncateTail();
+        }
+    }
+
+    /**
+     * @return True if the segment ends cleanly after its last valid record: with the zero end marker, or with too little
+     * space left for another record.
+     */
+    private static boolean isEndOfRecords(JournalSegment segment) {
+        int position = segment.position;
+        return position + JournalSegment.HEADER_SIZE > segment.capacity() || segment.buffer.getInt(position) == 0;
+    }
+
+    /**
+     * Starts a new segment. Called with the lock held.
+     */
+    private void roll(long firstSequence) {
+        try {
+            JournalSegment next = JournalSegment.create(directory, firstSequence, segmentSize);
+            sealed.add(current);
+            segments.add(next);
+            current = next;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create a new journal segment", e);
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            List<JournalSegment> toForce;
+            JournalSegment active;
+            int activeEnd;
+            long target;
+            boolean last;
+            lock.lock();
+            try {
+                // Sleep while there is nothing to flush. Then give the orders one commit interval to accumulate,
+                // unless someone is waiting for durability or the journal closes.
+                long deadline = System.nanoTime() + commitIntervalNanos;
+                while (!closed && !flushRequested) {
+                    if (lastSequence == durableSequence) {
+                        flushNeeded.await();
+                        deadline = System.nanoTime() + commitIntervalNanos;
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    flushNeeded.awaitNanos(remaining);
+                }
+                flushRequested = false;
+                last = closed;
+                toForce = List.copyOf(sealed);
+                sealed.clear();
+                active = current;
+                activeEnd = current.position;
+                target = lastSequence;
+            } catch (InterruptedException e) {
+                // Nothing will be forced from now on. Fail the waiting and later awaitDurable calls instead of letting
+                // them wait forever.
+                flushFailure = new InterruptedIOException("The journal flusher was interrupted");
+                flushed.signalAll();
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException failure = null;
+            try {
+                for (JournalSegment segment : toForce) {
+                    segment.force(segment.position);
+                }
+                active.force(activeEnd);
+            } catch (UncheckedIOException e) {
+                failure = e.getCause();
+            }
+
+            lock.lock();
+            try {
+                if (failure != null) {
+                    flushFailure = failure;
+                } else {
+                    durableSequence = Math.max(durableSequence, target);
+                }
+                flushed.signalAll();
+                if (last || failure != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
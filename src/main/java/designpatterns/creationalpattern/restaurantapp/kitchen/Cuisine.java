@@ -0,0 +1,12 @@
+package designpatterns.creationalpattern.restaurantapp.kitchen;
+
+/**
+ * A cuisine known to the {@link CuisineRegistry}: its display name and the one {@link MealFactory} that cooks it.
+ * <p>
+ * Meal factories are stateless, so a single factory instance is shared by every restaurant and every order of the cuisine.
+ *
+ * @param name    The display name, e.g. {@code Italian}. It is computed once, when the cuisine is registered.
+ * @param factory The shared factory for the cuisine's dishes.
+ */
+public record Cuisine(String name, MealFactory factory) {
+}
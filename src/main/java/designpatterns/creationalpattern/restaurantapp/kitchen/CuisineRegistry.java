@@ -0,0 +1,50 @@
+package designpatterns.creationalpattern.restaurantapp.kitchen;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The catalogue of cuisines the kitchen can cook.
+ * <p>
+ * Every cuisine is registered once with its display name and a single, shared {@link MealFactory}. Serving a meal then
+ * only reads two precomputed fields instead of creating a new factory and deriving the name from its class on every order.
+ * New cuisines can be added at runtime with {@link #register(String, MealFactory)} and served through
+ * {@link Restaurant#forCuisine(String)}, without writing a new {@code Restaurant} subclass.
+ * <p>
+ * Names are compared ignoring case by the map's comparator, so looking a cuisine up on the order path does not allocate a
+ * lower-case copy of the name.
+ */
+public final class CuisineRegistry {
+    private static final ConcurrentNavigableMap<String, Cuisine> CUISINES = new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    public static final Cuisine ITALIAN = register("Italian", new ItalianMealFactory());
+    public static final Cuisine MEXICAN = register("Mexican", new MexicanMealFactory());
+
+    private CuisineRegistry() {
+    }
+
+    /**
+     * Registers a cuisine, replacing any cuisine with the same name (names are compared ignoring case).
+     *
+     * @param name    The display name, e.g. {@code Thai}.
+     * @param factory A stateless factory; it is shared by all orders of the cuisine.
+     * @return The registered cuisine.
+     */
+    public static Cuisine register(String name, MealFactory factory) {
+        Cuisine cuisine = new Cuisine(name, factory);
+        CUISINES.put(name, cuisine);
+        return cuisine;
+    }
+
+    /**
+     * @return The cuisine with the given name (ignoring case), or `null` if none is registered.
+     */
+    public static Cuisine find(String name) {
+        return CUISINES.get(name);
+    }
+
+    public static Collection<Cuisine> all() {
+        return CUISINES.values();
+    }
+}
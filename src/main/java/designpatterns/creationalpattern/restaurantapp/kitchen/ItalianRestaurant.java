@@ -2,11 +2,16 @@ package designpatterns.creationalpattern.restaurantapp.kitchen;
 
 /**
  * ## Factory Method Pattern ##
- * Concrete Creator 1: Implements the factory method to return an `ItalianMealFactory`.
+ * Concrete Creator 1: Implements the factory method to return the shared `ItalianMealFactory`.
  */
 public class ItalianRestaurant extends Restaurant {
     @Override
     public MealFactory getMealFactory() {
-        return new ItalianMealFactory();
+        return CuisineRegistry.ITALIAN.factory();
+    }
+
+    @Override
+    public String getCuisineName() {
+        return CuisineRegistry.ITALIAN.name();
     }
 }
@@ -0,0 +1,215 @@
+package designpatterns.creationalpattern.restaurantapp.kitchen;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Schedules orders onto kitchen <b>stations</b> instead of cooking each meal on the caller's thread like
+ * {@link Restaurant#serveMeal()} does.
+ *
+ * <h2>How it works</h2>
+ * <ol>
+ *     <li>{@link #submit(Restaurant)} asks the restaurant's {@link MealFactory} for the dishes (exactly like {@code serveMeal()})
+ *     and puts each dish into the queue of its station. Any number of threads may submit at the same time.</li>
+ *     <li>There is one worker per station: the main-course station and the dessert station. A worker takes everything
+ *     that is waiting, up to {@code maxBatchSize} dishes, and groups identical dishes together.</li>
+ *     <li>Each group is cooked in one batched cycle with {@link MainCourse#prepare(int)} / {@link Dessert#prepare(int)}.
+ *     Ten waiting Pasta orders become one "prepare 10 portions" call, so the per-dish setup is paid once.</li>
+ *     <li>An order is complete when both of its dishes are done; the returned future completes at that point.</li>
+ * </ol>
+ * Both station queues hold at most {@code queueCapacity} dishes. When a station is full, {@code submit} blocks, which
+ * slows producers down to the kitchen's pace.
+ * <p>
+ * Each station guards its queue and its stopped flag with one lock, so a dish is either queued before {@link #close()}
+ * (and then cooked or cancelled) or rejected; it can never be left behind in a queue nobody reads.
+ */
+public class KitchenScheduler implements AutoCloseable {
+    private final Station<MainCourse> mainCourseStation;
+    private final Station<Dessert> dessertStation;
+
+    /**
+     * @param queueCapacity How many dishes may wait at each station before {@link #submit(Restaurant)} blocks.
+     * @param maxBatchSize  The most dishes a station takes for one cooking cycle.
+     */
+    public KitchenScheduler(int queueCapacity, int maxBatchSize) {
+        if (queueCapacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Queue capacity and batch size must be positive");
+        }
+        mainCourseStation = new Station<>("main-course-station", queueCapacity, maxBatchSize, MainCourse::prepare);
+        dessertStation = new Station<>("dessert-station", queueCapacity, maxBatchSize, Dessert::prepare);
+    }
+
+    /**
+     * Places an order for a meal from the given restaurant.
+     *
+     * @return A future that completes when both the main course and the dessert have been prepared.
+     * @throws InterruptedException  if the caller was interrupted while waiting for room at a station.
+     * @throws IllegalStateException if the scheduler has been closed, also while the caller was waiting for room.
+     */
+    public CompletableFuture<Void> submit(Restaurant restaurant) throws InterruptedException {
+        MealFactory factory = restaurant.getMealFactory();
+        Order order = new Order();
+        mainCourseStation.put(factory.createMainCourse(), order);
+        try {
+            dessertStation.put(factory.createDessert(), order);
+        } catch (InterruptedException | RuntimeException e) {
+            // The main course is already queued; fail the order so that nobody waits for a dessert that never comes.
+            order.done.completeExceptionally(e);
+            throw e;
+        }
+        return order.done;
+    }
+
+    /**
+     * Stops both stations. Batches that are being cooked are finished; orders that have not been cooked yet complete
+     * with a {@link CancellationException}, and threads blocked in {@link #submit(Restaurant)} fail.
+     * <p>
+     * Waiting for the batches in progress is not interruptible: when this method returns, both stations have stopped.
+     * If the caller is interrupted meanwhile, its interrupt flag is set again before returning.
+     */
+    @Override
+    public void close() {
+        boolean interrupted = mainCourseStation.stop();
+        interrupted |= dessertStation.stop();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Order {
+        private final AtomicInteger remainingDishes = new AtomicInteger(2);
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        void dishReady() {
+            if (remainingDishes.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+    }
+
+    private record Ticket<D>(D dish, Order order) {
+    }
+
+    private static final class Station<D> implements Runnable {
+        private final ArrayDeque<Ticket<D>> queue;
+        private final int queueCapacity;
+        private final int maxBatchSize;
+        private final BiConsumer<D, Integer> cook;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private final Thread worker;
+        // Guarded by lock.
+        private boolean stopped;
+
+        Station(String name, int queueCapacity, int maxBatchSize, BiConsumer<D, Integer> cook) {
+            this.queue = new ArrayDeque<>(queueCapacity);
+            this.queueCapacity = queueCapacity;
+            this.maxBatchSize = maxBatchSize;
+            this.cook = cook;
+            this.worker = Thread.ofPlatform().name(name).daemon().start(this);
+        }
+
+        void put(D dish, Order order) throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                while (!stopped && queue.size() == queueCapacity) {
+                    notFull.await();
+                }
+                if (stopped) {
+                    throw new IllegalStateException("Kitchen is closed");
+                }
+                queue.add(new Ticket<>(dish, order));
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Ticket<D>> batch = new ArrayList<>(maxBatchSize);
+            while (takeBatch(batch)) {
+                cookBatch(batch);
+                batch.clear();
+            }
+        }
+
+        /**
+         * Waits for dishes and moves up to {@code maxBatchSize} of them into the batch.
+         *
+         * @return False once the station is stopped; every dish still queued has been cancelled then.
+         */
+        private boolean takeBatch(List<Ticket<D>> batch) {
+            lock.lock();
+            try {
+                while (!stopped && queue.isEmpty()) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (stopped) {
+                    queue.forEach(Station::cancel);
+                    queue.clear();
+                    return false;
+                }
+                while (batch.size() < maxBatchSize && !queue.isEmpty()) {
+                    batch.add(queue.poll());
+                }
+                notFull.signalAll();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void cookBatch(List<Ticket<D>> batch) {
+            Map<Class<?>, List<Ticket<D>>> identicalDishes = new LinkedHashMap<>();
+            for (Ticket<D> ticket : batch) {
+                identicalDishes.computeIfAbsent(ticket.dish().getClass(), type -> new ArrayList<>()).add(ticket);
+            }
+            for (List<Ticket<D>> group : identicalDishes.values()) {
+                try {
+                    cook.accept(group.get(0).dish(), group.size());
+                    group.forEach(ticket -> ticket.order().dishReady());
+                } catch (RuntimeException e) {
+                    group.forEach(ticket -> ticket.order().done.completeExceptionally(e));
+                }
+            }
+        }
+
+        /**
+         * @return True if the caller was interrupted while waiting for the worker; the interrupt flag is cleared then.
+         */
+        boolean stop() {
+            lock.lock();
+            try {
+                stopped = true;
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            boolean interrupted = false;
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            return interrupted;
+        }
+
+        private static void cancel(Ticket<?> ticket) {
+            ticket.order().done.completeExceptionally(new CancellationException("Kitchen closed"));
+        }
+    }
+}
@@ -6,4 +6,15 @@ package designpatterns.creationalpattern.restaurantapp.kitchen;
  */
 public interface MainCourse {
     void prepare();
+
+    /**
+     * Prepares several identical portions in one cycle. Kitchens that can cook a batch at once (one pot, one oven load)
+     * override this so the setup cost is paid once per batch instead of once per portion.
+     * By default the portions are prepared one after another.
+     */
+    default void prepare(int portions) {
+        for (int i = 0; i < portions; i++) {
+            prepare();
+        }
+    }
 }
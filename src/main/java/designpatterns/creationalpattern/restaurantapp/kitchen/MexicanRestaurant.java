@@ -2,11 +2,16 @@ package designpatterns.creationalpattern.restaurantapp.kitchen;
 
 /**
  * ## Factory Method Pattern ##
- * Concrete Creator 2: Implements the factory method to return a `MexicanMealFactory`.
+ * Concrete Creator 2: Implements the factory method to return the shared `MexicanMealFactory`.
  */
 public class MexicanRestaurant extends Restaurant {
     @Override
     public MealFactory getMealFactory() {
-        return new MexicanMealFactory();
+        return CuisineRegistry.MEXICAN.factory();
+    }
+
+    @Override
+    public String getCuisineName() {
+        return CuisineRegistry.MEXICAN.name();
     }
 }
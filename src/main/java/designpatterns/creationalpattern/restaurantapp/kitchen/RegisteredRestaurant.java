@@ -0,0 +1,22 @@
+package designpatterns.creationalpattern.restaurantapp.kitchen;
+
+/**
+ * A restaurant for any cuisine in the {@link CuisineRegistry}. Created through {@link Restaurant#forCuisine(String)}.
+ */
+final class RegisteredRestaurant extends Restaurant {
+    private final Cuisine cuisine;
+
+    RegisteredRestaurant(Cuisine cuisine) {
+        this.cuisine = cuisine;
+    }
+
+    @Override
+    public MealFactory getMealFactory() {
+        return cuisine.factory();
+    }
+
+    @Override
+    public String getCuisineName() {
+        return cuisine.name();
+    }
+}
@@ -1,6 +1,28 @@
 package designpatterns.creationalpattern.restaurantapp.kitchen;
 
+import designpatterns.creationalpattern.metrics.CreationMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 public abstract class Restaurant {
+    private static final Logger LOG = LoggerFactory.getLogger(Restaurant.class);
+
+    private String cuisineName;
+    private Timer serveTimer;
+    private final CreationMetrics.DishTimerCache mainCourseTimers = new CreationMetrics.DishTimerCache();
+    private final CreationMetrics.DishTimerCache dessertTimers = new CreationMetrics.DishTimerCache();
 
     /**
      * ## Factory Method Pattern ##
@@ -8,12 +30,104 @@ public abstract class Restaurant {
      */
     public abstract MealFactory getMealFactory();
 
+    /**
+     * Creates a restaurant for a cuisine from the {@link CuisineRegistry}, so new cuisines need no subclass.
+     *
+     * @throws IllegalArgumentException if no cuisine with that name is registered.
+     */
+    public static Restaurant forCuisine(String cuisineName) {
+        Cuisine cuisine = CuisineRegistry.find(cuisineName);
+        if (cuisine == null) {
+            throw new IllegalArgumentException("Unknown cuisine: " + cuisineName);
+        }
+        return new RegisteredRestaurant(cuisine);
+    }
+
+    /**
+     * The name shown when a meal is served. Subclasses backed by the {@link CuisineRegistry} return the precomputed name;
+     * otherwise it is derived from the factory's class name once and then remembered.
+     */
+    public String getCuisineName() {
+        String name = cuisineName;
+        if (name == null) {
+            name = getMealFactory().getClass().getSimpleName().replace("MealFactory", "");
+            cuisineName = name;
+        }
+        return name;
+    }
+
     public void serveMeal() {
+        long start = System.nanoTime();
         MealFactory factory = getMealFactory();
-        System.out.println("--- Serving a meal from the " + factory.getClass().getSimpleName().replace("MealFactory", "") + " kitchen ---");
+        announce();
         MainCourse main = factory.createMainCourse();
         Dessert dessert = factory.createDessert();
+        long mainStart = System.nanoTime();
         main.prepare();
+        long dessertStart = System.nanoTime();
         dessert.prepare();
+        long end = System.nanoTime();
+        mainCourseTimers.forDish(main.getClass()).record(dessertStart - mainStart, TimeUnit.NANOSECONDS);
+        dessertTimers.forDish(dessert.getClass()).record(end - dessertStart, TimeUnit.NANOSECONDS);
+        serveTimer().record(end - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Serves a meal like {@link #serveMeal()}, but prepares the main course and the dessert at the same time,
+     * each on its own virtual thread. The meal is ready after the slower of the two dishes instead of after both.
+     * <p>
+     * The two dishes are treated as one unit of work:
+     * <ul>
+     *     <li>If one dish fails, the other one is cancelled and the failure is rethrown.</li>
+     *     <li>If the meal is not ready within the timeout, both dishes are cancelled.</li>
+     *     <li>The method never returns while a dish is still being prepared.</li>
+     * </ul>
+     *
+     * @param timeout The longest time the whole meal may take.
+     * @throws ExecutionException   if preparing a dish failed; the cause is the dish's exception.
+     * @throws TimeoutException     if the meal was not ready in time.
+     * @throws InterruptedException if the calling thread was interrupted while waiting.
+     */
+    public void serveMealInParallel(Duration timeout) throws InterruptedException, ExecutionException, TimeoutException {
+        long start = System.nanoTime();
+        MealFactory factory = getMealFactory();
+        announce();
+        MainCourse main = factory.createMainCourse();
+        Dessert dessert = factory.createDessert();
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try (ExecutorService cooks = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<Void> kitchen = new ExecutorCompletionService<>(cooks);
+            List<Future<Void>> dishes = List.of(
+                    kitchen.submit(main::prepare, null),
+                    kitchen.submit(dessert::prepare, null));
+            try {
+                for (int i = 0; i < dishes.size(); i++) {
+                    Future<Void> ready = kitchen.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (ready == null) {
+                        throw new TimeoutException("Meal was not ready within " + timeout.toMillis() + " ms");
+                    }
+                    ready.get();
+                }
+            } finally {
+                // No-op for finished dishes; cancels the sibling after a failure or timeout.
+                dishes.forEach(dish -> dish.cancel(true));
+            }
+        }
+        serveTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer serveTimer() {
+        Timer timer = serveTimer;
+        if (timer == null) {
+            timer = CreationMetrics.serveTimer(getCuisineName());
+            serveTimer = timer;
+        }
+        return timer;
+    }
+
+    private void announce() {
+        // Debug only: System.out takes a lock on every line, which the kitchen threads would queue up on.
+        LOG.debug("--- Serving a meal from the {} kitchen ---", getCuisineName());
     }
 }
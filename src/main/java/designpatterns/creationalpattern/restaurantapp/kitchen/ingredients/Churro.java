@@ -1,10 +1,19 @@
 package designpatterns.creationalpattern.restaurantapp.kitchen.ingredients;
 
 import designpatterns.creationalpattern.restaurantapp.kitchen.Dessert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class Churro implements Dessert {
+    private static final Logger LOG = LoggerFactory.getLogger(Churro.class);
+
     @Override
     public void prepare() {
-        System.out.println("Frying a sweet Churro with cinnamon sugar.");
+        LOG.debug("Frying a sweet Churro with cinnamon sugar.");
+    }
+
+    @Override
+    public void prepare(int portions) {
+        LOG.debug("Frying {} sweet Churros with cinnamon sugar.", portions);
     }
 }
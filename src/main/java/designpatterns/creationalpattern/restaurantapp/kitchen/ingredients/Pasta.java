@@ -1,10 +1,19 @@
 package designpatterns.creationalpattern.restaurantapp.kitchen.ingredients;
 
 import designpatterns.creationalpattern.restaurantapp.kitchen.MainCourse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class Pasta implements MainCourse {
+    private static final Logger LOG = LoggerFactory.getLogger(Pasta.class);
+
     @Override
     public void prepare() {
-        System.out.println("Preparing delicious Pasta.");
+        LOG.debug("Preparing delicious Pasta.");
+    }
+
+    @Override
+    public void prepare(int portions) {
+        LOG.debug("Preparing {} portions of delicious Pasta.", portions);
     }
 }
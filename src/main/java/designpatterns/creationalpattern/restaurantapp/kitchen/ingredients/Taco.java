@@ -1,10 +1,19 @@
 package designpatterns.creationalpattern.restaurantapp.kitchen.ingredients;
 
 import designpatterns.creationalpattern.restaurantapp.kitchen.MainCourse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class Taco implements MainCourse {
+    private static final Logger LOG = LoggerFactory.getLogger(Taco.class);
+
     @Override
     public void prepare() {
-        System.out.println("Assembling a spicy Taco.");
+        LOG.debug("Assembling a spicy Taco.");
+    }
+
+    @Override
+    public void prepare(int portions) {
+        LOG.debug("Assembling {} spicy Tacos.", portions);
     }
 }
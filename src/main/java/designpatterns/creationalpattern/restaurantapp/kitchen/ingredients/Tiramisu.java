@@ -1,10 +1,19 @@
 package designpatterns.creationalpattern.restaurantapp.kitchen.ingredients;
 
 import designpatterns.creationalpattern.restaurantapp.kitchen.Dessert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class Tiramisu implements Dessert {
+    private static final Logger LOG = LoggerFactory.getLogger(Tiramisu.class);
+
     @Override
     public void prepare() {
-        System.out.println("Preparing classic Tiramisu.");
+        LOG.debug("Preparing classic Tiramisu.");
+    }
+
+    @Override
+    public void prepare(int portions) {
+        LOG.debug("Preparing {} portions of classic Tiramisu.", portions);
     }
 }
@@ -1,39 +1,162 @@
 package designpatterns.creationalpattern.restaurantapp.model;
 
+import designpatterns.creationalpattern.metrics.CreationMetrics;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
 /**
  * The main "Product" class in our application.
+ * <p>
+ * A `Meal` is immutable: all fields are final and there are no setters. That makes it safe to share one instance between
+ * many orders (the "flyweight" mode of the `MenuService`). To customize a shared meal, use one of the {@code with...}
+ * methods; they leave the original untouched and return a new `Meal` with the one changed part.
+ * <p>
+ * Two meals with the same parts are {@link #equals(Object) equal}.
+ *
+ * <h2>Interning</h2>
+ * An order history holds millions of meals, but most of them are one of a handful of combinations. When interning is on,
+ * {@link MealBuilder#build()}, {@link #clone()} and the {@code with...} methods return one shared instance per
+ * combination instead of a new object, and the parts of that instance are shared strings too, so a million orders of the
+ * same meal keep one {@code Meal} in memory. Shared meals are held weakly: a combination nobody refers to any more is
+ * garbage-collected as usual. Because a {@code Meal} is immutable, sharing it is not observable except through {@code ==};
+ * in particular {@code clone()} may return the meal itself. Interning is off by default; it can be switched with
+ * {@link #setInterning(boolean)} or the {@code meal.intern} system property.
  */
 public class Meal implements CloneableMeal {
+    private static final WeakInterner<Meal> MEALS = new WeakInterner<>();
+    private static final WeakInterner<String> PARTS = new WeakInterner<>();
+    private static volatile boolean interning = Boolean.getBoolean("meal.intern");
+
     private final String mainCourse;
     private final String sideDish;
     private final String drink;
     private final String dessert;
+    // Computed on first use; 0 means "not computed yet". Racy but safe, as in String.
+    private int hash;
 
     /**
      * ## Builder Pattern ##
      * The constructor is private, forcing object creation through the `MealBuilder`.
      */
     private Meal(MealBuilder builder) {
-        this.mainCourse = builder.mainCourse;
-        this.sideDish = builder.sideDish;
-        this.drink = builder.drink;
-        this.dessert = builder.dessert;
+        this(builder.mainCourse, builder.sideDish, builder.drink, builder.dessert);
+    }
+
+    private Meal(String mainCourse, String sideDish, String drink, String dessert) {
+        this.mainCourse = mainCourse;
+        this.sideDish = sideDish;
+        this.drink = drink;
+        this.dessert = dessert;
     }
 
     /**
      * ## Prototype Pattern ##
      * By implementing `clone()`, we can create copies of existing meal objects.
+     * The fields are immutable, so they are copied directly instead of going through a `MealBuilder`.
      */
     @Override
     public Meal clone() {
-        return new MealBuilder(this.mainCourse)
-                .withSideDish(this.sideDish)
-                .withDrink(this.drink)
-                .withDessert(this.dessert)
-                .build();
+        return interning ? intern(this) : new Meal(mainCourse, sideDish, drink, dessert);
+    }
+
+    public static boolean isInterning() {
+        return interning;
+    }
+
+    /**
+     * Switches interning on or off for all meals. Meals created while it was off stay separate objects.
+     */
+    public static void setInterning(boolean interning) {
+        Meal.interning = interning;
+    }
+
+    /**
+     * @return The shared meal equal to the given one; the first meal of each combination becomes the shared one, with its
+     * parts replaced by shared strings.
+     */
+    static Meal intern(Meal meal) {
+        return MEALS.intern(meal, m -> new Meal(internPart(m.mainCourse), internPart(m.sideDish), internPart(m.drink),
+                internPart(m.dessert)));
+    }
+
+    /**
+     * @return The number of distinct meals currently shared by interning.
+     */
+    static int internedCount() {
+        return MEALS.size();
+    }
+
+    private static String internPart(String part) {
+        return part == null ? null : PARTS.intern(part);
+    }
+
+    private static Meal create(String mainCourse, String sideDish, String drink, String dessert) {
+        Meal meal = new Meal(mainCourse, sideDish, drink, dessert);
+        return interning ? intern(meal) : meal;
+    }
+
+    // Copy-on-modify: derive a customized meal from this one without changing it.
+
+    public Meal withMainCourse(String mainCourse) {
+        return create(mainCourse, sideDish, drink, dessert);
+    }
+
+    public Meal withSideDish(String sideDish) {
+        return create(mainCourse, sideDish, drink, dessert);
+    }
+
+    public Meal withDrink(String drink) {
+        return create(mainCourse, sideDish, drink, dessert);
+    }
+
+    public Meal withDessert(String dessert) {
+        return create(mainCourse, sideDish, drink, dessert);
+    }
+
+    public String getMainCourse() {
+        return mainCourse;
+    }
+
+    public String getSideDish() {
+        return sideDish;
+    }
+
+    public String getDrink() {
+        return drink;
+    }
+
+    public String getDessert() {
+        return dessert;
     }
 
-    // Getters and other methods...
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        return other instanceof Meal meal
+                && hashCode() == meal.hashCode()
+                && Objects.equals(mainCourse, meal.mainCourse)
+                && Objects.equals(sideDish, meal.sideDish)
+                && Objects.equals(drink, meal.drink)
+                && Objects.equals(dessert, meal.dessert);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hashCode(mainCourse);
+            h = 31 * h + Objects.hashCode(sideDish);
+            h = 31 * h + Objects.hashCode(drink);
+            h = 31 * h + Objects.hashCode(dessert);
+            hash = h;
+        }
+        return h;
+    }
+
+    // Other methods...
     @Override
     public String toString() {
         return "Meal [Main Course=" + mainCourse + ", Side Dish=" + sideDish + ", Drink=" + drink + ", Dessert=" + dessert + "]";
@@ -42,15 +165,52 @@ public class Meal implements CloneableMeal {
     /**
      * ## Builder Pattern ##
      * The static nested Builder class for constructing a Meal.
+     *
+     * <h2>Reusing a builder</h2>
+     * {@link #build()} copies the builder's values into the new {@code Meal}, so one builder can build any number of meals.
+     * {@link #reset(String)} starts the next meal: it sets the main course and puts the optional parts back to their
+     * defaults. For bulk generation, {@link #reusable(String)} hands out a builder kept per thread, so a loop that builds
+     * millions of meals allocates only the meals themselves:
+     * <pre>{@code
+     * for (String[] row : rows) {
+     *     meals.add(Meal.MealBuilder.reusable(row[0]).withDrink(row[1]).build());
+     * }
+     * }</pre>
+     * The per-thread builder must not be kept or passed on, because the next {@code reusable(...)} call on the same thread
+     * resets it. For the same reason it belongs to the application code that runs the loop: code that may be called from
+     * inside such a loop (decoders, snapshot readers, parsers) uses {@code new MealBuilder(...)}, which escape analysis
+     * usually keeps off the heap anyway.
      */
-    public static class MealBuilder {
-        private final String mainCourse;
-        private String sideDish = "Fries";
-        private String drink = "Water";
+    public static final class MealBuilder {
+        private static final String DEFAULT_SIDE_DISH = "Fries";
+        private static final String DEFAULT_DRINK = "Water";
+        private static final ThreadLocal<MealBuilder> REUSABLE = ThreadLocal.withInitial(() -> new MealBuilder(null));
+
+        private String mainCourse;
+        private String sideDish;
+        private String drink;
         private String dessert;
 
         public MealBuilder(String mainCourse) {
+            reset(mainCourse);
+        }
+
+        /**
+         * @return The builder of the current thread, reset to the given main course.
+         */
+        public static MealBuilder reusable(String mainCourse) {
+            return REUSABLE.get().reset(mainCourse);
+        }
+
+        /**
+         * Starts a new meal with this builder: sets the main course and resets the optional parts to their defaults.
+         */
+        public MealBuilder reset(String mainCourse) {
             this.mainCourse = mainCourse;
+            this.sideDish = DEFAULT_SIDE_DISH;
+            this.drink = DEFAULT_DRINK;
+            this.dessert = null;
+            return this;
         }
 
         public MealBuilder withSideDish(String sideDish) {
@@ -69,7 +229,13 @@ public class Meal implements CloneableMeal {
         }
 
         public Meal build() {
-            return new Meal(this);
+            long start = System.nanoTime();
+            Meal meal = new Meal(this);
+            if (interning) {
+                meal = intern(meal);
+            }
+            CreationMetrics.MEAL_BUILD.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return meal;
         }
     }
 }
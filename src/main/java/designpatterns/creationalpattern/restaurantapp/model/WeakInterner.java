@@ -0,0 +1,112 @@
+package designpatterns.creationalpattern.restaurantapp.model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * A thread-safe pool of canonical instances: {@link #intern(Object, UnaryOperator)} returns the pooled instance equal to the
+ * given value, so equal values can share one object (hash-consing).
+ * <p>
+ * The pool holds its instances through weak references. An instance that nothing else refers to any more is collected
+ * as usual; its reference is then enqueued and the stale entry is removed on the next call. The pool therefore never keeps
+ * a meal alive and only grows with the number of distinct values in use.
+ * <p>
+ * Lookups do not allocate an entry: they probe the map with a short-lived {@code Lookup} that compares equal to the stored
+ * reference of an equal value. Only a value seen for the first time creates a reference and a map entry.
+ */
+final class WeakInterner<T> {
+    private final ConcurrentHashMap<Object, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<T> collected = new ReferenceQueue<>();
+
+    /**
+     * @param canonicalizer Creates the instance to pool when no equal one is pooled yet, for example a copy whose parts are
+     *                      interned as well. Gets the value and must return an equal one.
+     * @return The pooled instance equal to the value.
+     */
+    T intern(T value, UnaryOperator<T> canonicalizer) {
+        expungeCollected();
+        Entry<T> existing = entries.get(new Lookup(value));
+        if (existing != null) {
+            T canonical = existing.get();
+            if (canonical != null) {
+                return canonical;
+            }
+        }
+        T candidate = canonicalizer.apply(value);
+        Entry<T> entry = new Entry<>(candidate, collected);
+        while (true) {
+            Entry<T> raced = entries.putIfAbsent(entry, entry);
+            if (raced == null) {
+                return candidate;
+            }
+            T canonical = raced.get();
+            if (canonical != null) {
+                // Another thread pooled an equal value first.
+                return canonical;
+            }
+            entries.remove(raced, raced);
+        }
+    }
+
+    T intern(T value) {
+        return intern(value, UnaryOperator.identity());
+    }
+
+    /**
+     * @return The number of pooled instances, including some that were just collected.
+     */
+    int size() {
+        expungeCollected();
+        return entries.size();
+    }
+
+    private void expungeCollected() {
+        for (Object reference = collected.poll(); reference != null; reference = collected.poll()) {
+            entries.remove(reference, reference);
+        }
+    }
+
+    private static final class Entry<T> extends WeakReference<T> {
+        private final int hash;
+
+        Entry(T value, ReferenceQueue<T> queue) {
+            super(value, queue);
+            hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * Equal to itself and to entries of an equal live value. A collected entry is only equal to itself, so it can still
+         * be removed.
+         */
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            }
+            if (!(other instanceof Entry<?> entry) || entry.hash != hash) {
+                return false;
+            }
+            Object value = get();
+            return value != null && value.equals(entry.get());
+        }
+    }
+
+    private record Lookup(Object value) {
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Entry<?> entry && value.equals(entry.get());
+        }
+    }
+}
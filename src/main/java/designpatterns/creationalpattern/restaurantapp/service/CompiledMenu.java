@@ -0,0 +1,171 @@
+package designpatterns.creationalpattern.restaurantapp.service;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+
+/**
+ * A {@link MenuSnapshot} compiled for lookups: two minimal perfect hash tables (see {@link PerfectHash}) over the meal names,
+ * one by {@link String#hashCode()} for exact lookups and one by a case-folded hash for case-insensitive lookups.
+ *
+ * <h2>Lookup cost</h2>
+ * An exact lookup uses the hash code the name string has already cached, finds the slot without probing, rejects unknown
+ * names by comparing the stored hash code, and confirms a match with {@code equals}, which returns at once when the caller
+ * passes the same string instance as the menu (string literals, interned names). A case-insensitive lookup computes the
+ * folded hash over the name's code points and compares with {@link String#equalsIgnoreCase(String)}; neither allocates.
+ * With a {@link MealId} the lookup is one array read.
+ *
+ * <h2>Lazy tables and meals</h2>
+ * Compiling needs only the names. A menu restored from a binary snapshot decodes its names and meals on first use, and
+ * compiling it does not change that: the names are read and the tables built on the first lookup, not when the menu is
+ * published, so restoring a snapshot stays independent of its size. The meal of an entry is fetched from the snapshot the
+ * first time it is looked up and then kept in the entry. Other menus are compiled completely up front.
+ */
+final class CompiledMenu {
+    private final MenuSnapshot snapshot;
+    // Null for a mapped snapshot until the first lookup, see tables().
+    private volatile Tables tables;
+
+    private CompiledMenu(MenuSnapshot snapshot) {
+        this.snapshot = snapshot;
+        if (!(snapshot.meals() instanceof MappedMenu)) {
+            Tables built = new Tables(snapshot);
+            for (int i = 0; i < built.names.length; i++) {
+                built.meals[i] = snapshot.get(built.names[i]);
+            }
+            tables = built;
+        }
+    }
+
+    static CompiledMenu compile(MenuSnapshot snapshot) {
+        return new CompiledMenu(snapshot);
+    }
+
+    MenuSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return The entry of the meal with exactly this name, or -1 (also for {@code null}).
+     */
+    int indexOf(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Tables tables = tables();
+        PerfectHash exact = tables.exact;
+        int slot = exact.slotOf(name.hashCode());
+        if (slot >= 0) {
+            for (int i = exact.groupStart(slot), end = exact.groupEnd(slot); i < end; i++) {
+                int entry = exact.entryAt(i);
+                if (name.equals(tables.names[entry])) {
+                    return entry;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The entry of the meal whose name equals this one ignoring case, or -1. If the menu has several such names,
+     * the exact one wins, otherwise any of them. {@code null} matches nothing.
+     */
+    int indexOfIgnoreCase(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Tables tables = tables();
+        PerfectHash ignoreCase = tables.ignoreCase;
+        int slot = ignoreCase.slotOf(foldedHash(name));
+        int found = -1;
+        if (slot >= 0) {
+            for (int i = ignoreCase.groupStart(slot), end = ignoreCase.groupEnd(slot); i < end; i++) {
+                int entry = ignoreCase.entryAt(i);
+                String candidate = tables.names[entry];
+                if (name.equals(candidate)) {
+                    return entry;
+                }
+                if (found < 0 && name.equalsIgnoreCase(candidate)) {
+                    found = entry;
+                }
+            }
+        }
+        return found;
+    }
+
+    String nameAt(int entry) {
+        return tables().names[entry];
+    }
+
+    Meal mealAt(int entry) {
+        Tables tables = tables();
+        Meal meal = tables.meals[entry];
+        if (meal == null) {
+            // A benign race: every thread gets the same prototype from the snapshot, and Meal is immutable.
+            meal = snapshot.get(tables.names[entry]);
+            tables.meals[entry] = meal;
+        }
+        return meal;
+    }
+
+    private Tables tables() {
+        Tables current = tables;
+        if (current == null) {
+            // Built once: for a big menu, a second build by a racing thread would cost as much as the first.
+            synchronized (this) {
+                current = tables;
+                if (current == null) {
+                    current = new Tables(snapshot);
+                    tables = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * A hash that is equal for names that are {@link String#equalsIgnoreCase(String) equal ignoring case}: it folds each
+     * code point the way {@code equalsIgnoreCase} compares them. Like {@code equalsIgnoreCase}, it reads a surrogate pair
+     * as one supplementary code point, so names that differ only in the case of, say, a Deseret letter hash alike. An
+     * unpaired surrogate is folded as the char it is.
+     */
+    static int foldedHash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            int c = name.charAt(i);
+            if (c < 0x80) {
+                if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
+            } else {
+                if (Character.isHighSurrogate((char) c) && i + 1 < name.length() && Character.isLowSurrogate(name.charAt(i + 1))) {
+                    c = Character.toCodePoint((char) c, name.charAt(++i));
+                }
+                c = Character.toLowerCase(Character.toUpperCase(c));
+            }
+            hash = 31 * hash + c;
+        }
+        return hash;
+    }
+
+    /**
+     * The names, the meals fetched so far and the two hash tables, all indexed by entry.
+     */
+    private static final class Tables {
+        final String[] names;
+        final Meal[] meals;
+        final PerfectHash exact;
+        final PerfectHash ignoreCase;
+
+        Tables(MenuSnapshot snapshot) {
+            names = snapshot.meals().keySet().toArray(String[]::new);
+            meals = new Meal[names.length];
+            int[] exactHashes = new int[names.length];
+            int[] foldedHashes = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                exactHashes[i] = names[i].hashCode();
+                foldedHashes[i] = foldedHash(names[i]);
+            }
+            exact = PerfectHash.build(exactHashes);
+            ignoreCase = PerfectHash.build(foldedHashes);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package designpatterns.creationalpattern.restaurantapp.service;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import designpatterns.creationalpattern.snapshot.SnapshotHeader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A read-only map of meal prototypes backed by a memory-mapped menu snapshot (see {@link MenuSnapshotFile}).
+ * <p>
+ * Opening the map decodes nothing. {@link #get(Object)} binary-searches the sorted entry table by comparing the requested
+ * name with the mapped bytes, then decodes only the meal it found. Each meal is decoded once and then kept, so repeated
+ * lookups return the same prototype and cost no more than a {@code HashMap} lookup plus the search.
+ * <p>
+ * The constructor checks only the offset table, so opening stays cheap however big the menu is: the table must fit, the
+ * first entry must start right after it, and each entry must be at least as long as its five length fields, ending
+ * inside the file. A file truncated in the table or before the last entry is rejected with an {@link IOException}.
+ * Everything else is checked when it is first read: a name before it is compared or returned, the other fields before
+ * the meal is decoded. A damaged entry fails the lookup that reads it with an {@link IllegalStateException}, instead of
+ * an {@link IndexOutOfBoundsException} or a meal made of garbage; the other entries stay readable.
+ */
+final class MappedMenu extends AbstractMap<String, Meal> {
+    // Name, main course, side dish, drink, dessert: five length fields of four bytes each.
+    private static final int MIN_ENTRY_SIZE = 5 * 4;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final AtomicReferenceArray<Meal> meals;
+
+    /**
+     * @throws IOException if the offset table does not fit the buffer, see above.
+     */
+    MappedMenu(ByteBuffer buffer, int count) throws IOException {
+        validateIndex(buffer, count);
+        this.buffer = buffer;
+        this.count = count;
+        this.meals = new AtomicReferenceArray<>(count);
+    }
+
+    private static void validateIndex(ByteBuffer buffer, int count) throws IOException {
+        if (count < 0 || count > (buffer.limit() - SnapshotHeader.SIZE) / 4) {
+            throw new IOException("Corrupt meal count " + count + " for a snapshot of " + buffer.limit() + " bytes");
+        }
+        long expected = SnapshotHeader.SIZE + 4L * count;
+        for (int i = 0; i < count; i++) {
+            int offset = buffer.getInt(SnapshotHeader.SIZE + 4 * i);
+            if (i == 0 ? offset != expected : offset < expected) {
+                throw new IOException("Corrupt offset " + offset + " of meal entry " + i + ", expected "
+                        + (i == 0 ? "" : "at least ") + expected);
+            }
+            expected = (long) offset + MIN_ENTRY_SIZE;
+        }
+        if (expected > buffer.limit()) {
+            throw new IOException("Snapshot truncated in meal entry " + (count - 1));
+        }
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String name && indexOf(name) >= 0;
+    }
+
+    @Override
+    public Meal get(Object key) {
+        if (!(key instanceof String name)) {
+            return null;
+        }
+        int index = indexOf(name);
+        return index < 0 ? null : mealAt(index);
+    }
+
+    /**
+     * The names in snapshot order. Iterating them decodes no meals.
+     */
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < count;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (next >= count) {
+                            throw new NoSuchElementException();
+                        }
+                        return nameAt(next++);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<String, Meal>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public Iterator<Entry<String, Meal>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < count;
+                    }
+
+                    @Override
+                    public Entry<String, Meal> next() {
+                        if (next >= count) {
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++;
+                        return new SimpleImmutableEntry<>(nameAt(index), mealAt(index));
+                    }
+                };
+            }
+        };
+    }
+
+    private Meal mealAt(int index) {
+        Meal meal = meals.get(index);
+        if (meal == null) {
+            int position = entryOffset(index);
+            int end = entryEnd(index);
+            position += 4 + nameLength(index, position);
+            String[] parts = new String[4];
+            for (int i = 0; i < parts.length; i++) {
+                int length = buffer.getInt(position);
+                // Each part must leave room for the length fields of the parts after it.
+                if (length < MenuSnapshotFile.NULL_LENGTH || length > end - position - 4 * (parts.length - i)) {
+                    throw corrupt(index);
+                }
+                parts[i] = length == MenuSnapshotFile.NULL_LENGTH ? null : decode(position + 4, length);
+                position += 4 + Math.max(0, length);
+            }
+            if (index + 1 < count && position != end) {
+                throw corrupt(index);
+            }
+            Meal decoded = new Meal.MealBuilder(parts[0]).withSideDish(parts[1]).withDrink(parts[2]).withDessert(parts[3]).build();
+            // If another thread decoded it first, use its instance so that everyone shares one prototype.
+            Meal winner = meals.compareAndExchange(index, null, decoded);
+            meal = winner == null ? decoded : winner;
+        }
+        return meal;
+    }
+
+    private String nameAt(int index) {
+        int position = entryOffset(index);
+        return decode(position + 4, nameLength(index, position));
+    }
+
+    private int entryOffset(int index) {
+        return buffer.getInt(SnapshotHeader.SIZE + 4 * index);
+    }
+
+    /**
+     * @return Where the entry ends: at the next entry, or for the last one at the end of the file.
+     */
+    private int entryEnd(int index) {
+        return index + 1 < count ? entryOffset(index + 1) : buffer.limit();
+    }
+
+    /**
+     * Reads the length of an entry's name and checks that the name and the four length fields after it fit the entry.
+     */
+    private int nameLength(int index, int position) {
+        int length = buffer.getInt(position);
+        if (length < 0 || length > entryEnd(index) - position - MIN_ENTRY_SIZE) {
+            throw corrupt(index);
+        }
+        return length;
+    }
+
+    private static IllegalStateException corrupt(int index) {
+        return new IllegalStateException("Corrupt meal entry " + index + " in the menu snapshot");
+    }
+
+    private String decode(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int indexOf(String name) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareEntryName(middle, name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the stored name of an entry with the given name in UTF-8 byte order. ASCII names, the usual case, are
+     * compared character by character without encoding them; other names are encoded first.
+     */
+    private int compareEntryName(int index, String name) {
+        int position = entryOffset(index);
+        int length = nameLength(index, position);
+        int start = position + 4;
+        int common = Math.min(length, name.length());
+        for (int i = 0; i < common; i++) {
+            char c = name.charAt(i);
+            if (c >= 0x80) {
+                return compareEncoded(start, length, name);
+            }
+            int difference = (buffer.get(start + i) & 0xFF) - c;
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        for (int i = common; i < name.length(); i++) {
+            if (name.charAt(i) >= 0x80) {
+                return compareEncoded(start, length, name);
+            }
+        }
+        return Integer.compare(length, name.length());
+    }
+
+    private int compareEncoded(int start, int length, String name) {
+        byte[] wanted = name.getBytes(StandardCharsets.UTF_8);
+        int common = Math.min(length, wanted.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (buffer.get(start + i) & 0xFF) - (wanted[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return Integer.compare(length, wanted.length);
+    }
+}
@@ -0,0 +1,41 @@
+package designpatterns.creationalpattern.restaurantapp.service;
+
+/**
+ * A resolved meal name: a handle returned by {@link MenuService#resolve(String)} for callers that look up the same meal
+ * many times.
+ * <p>
+ * {@link MenuService#getMeal(MealId)} reads the meal of a handle with a single array access, as long as the menu has not
+ * changed since the handle was resolved. After a change the handle still works: it falls back to a lookup by name, so a
+ * caller only needs to resolve again to get the fastest path back, never to stay correct.
+ */
+public final class MealId {
+    private final String name;
+    private final CompiledMenu menu;
+    private final int entry;
+
+    MealId(String name, CompiledMenu menu, int entry) {
+        this.name = name;
+        this.menu = menu;
+        this.entry = entry;
+    }
+
+    /**
+     * @return The meal name as it appears on the menu.
+     */
+    public String name() {
+        return name;
+    }
+
+    CompiledMenu menu() {
+        return menu;
+    }
+
+    int entry() {
+        return entry;
+    }
+
+    @Override
+    public String toString() {
+        return "MealId[" + name + "]";
+    }
+}
@@ -1,21 +1,106 @@
 package designpatterns.creationalpattern.restaurantapp.service;
 
+import designpatterns.creationalpattern.metrics.CreationMetrics;
 import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * ## Singleton Pattern ##
  * This service class is implemented as a Singleton to ensure only one instance of the menu exists.
+ *
+ * <h2>Changing the menu at runtime</h2>
+ * The prototypes are held in an immutable {@link MenuSnapshot}. Writers never modify it; they build a new snapshot,
+ * compile it (see below) and swap it in with a single atomic reference update. Readers in {@link #getMeal(String)}
+ * just read the current reference, so they never take a lock and can never see a half-updated map, even while the
+ * menu is being replaced during peak service.
+ *
+ * <h2>Flyweight mode</h2>
+ * A {@link Meal} is immutable, so cloning it on every order only creates garbage. When flyweight mode is on,
+ * {@link #getMeal(String)} returns the shared prototype itself and allocates nothing. Callers that want to customize the meal
+ * use its copy-on-modify methods (for example {@code meal.withDrink("Coke")}), which leave the shared prototype unchanged.
+ * The mode is off by default, keeping the classic Prototype behaviour; it can be switched with
+ * {@link #setFlyweightMode(boolean)} or the {@code menu.flyweight} system property.
+ *
+ * <h2>Binary snapshots</h2>
+ * {@link #saveSnapshot(Path)} writes the current menu to a compact binary file, and {@link #loadSnapshot(Path)} restores it.
+ * Restoring memory-maps the file and decodes a meal only when it is first looked up, so startup time does not grow with
+ * the size of the menu. When the {@code menu.snapshot} system property names a file, the service starts from that file
+ * (if it exists) instead of building the default prototypes, and writes the menu back to it on shutdown. A file that cannot
+ * be restored is renamed to {@code <name>.corrupt-<timestamp>} before the service falls back to the default menu, so the
+ * shutdown save never overwrites it; if it cannot be renamed, the menu is not saved at all.
+ *
+ * <h2>Compiled menu</h2>
+ * Lookups do not go through the snapshot's map. Every change compiles the new snapshot into a {@link CompiledMenu}
+ * before publishing it, so a lookup never compiles; only a menu restored from a binary snapshot builds its tables on the
+ * first lookup, to keep restoring independent of the menu's size. The compiled menu is a minimal perfect hash over the meal names,
+ * so a lookup finds its entry without probing and rejects an unknown name with one comparison of hash codes. A
+ * {@code null} name is a miss like any unknown one. The same table answers {@link #getMealIgnoreCase(String)} without
+ * allocating a lower-case copy of the name. Callers that order the same meal again and again can resolve its name once with
+ * {@link #resolve(String)} and order by {@link MealId}, which costs one array read while the menu does not change.
  */
 public class MenuService {
+    private static final Logger LOG = LoggerFactory.getLogger(MenuService.class);
     private static final MenuService INSTANCE = new MenuService();
-    private final Map<String, Meal> mealPrototypes = new HashMap<>();
+    private final AtomicReference<CompiledMenu> menu;
+    private volatile boolean flyweightMode = Boolean.getBoolean("menu.flyweight");
 
     private MenuService() {
+        String snapshotFile = System.getProperty("menu.snapshot");
+        MenuSnapshot initial = null;
+        if (snapshotFile != null) {
+            Path file = Path.of(snapshotFile);
+            boolean canSave = true;
+            if (Files.exists(file)) {
+                try {
+                    initial = MenuSnapshotFile.read(file);
+                } catch (IOException e) {
+                    canSave = moveAside(file, e);
+                }
+            }
+            if (canSave) {
+                saveSnapshotOnShutdown(file);
+            }
+        }
+        menu = new AtomicReference<>(CompiledMenu.compile(initial != null ? initial : defaultMenu()));
+    }
+
+    /**
+     * Keeps a snapshot file that could not be restored for inspection, out of the way of the shutdown save.
+     *
+     * @return True if the file was moved, so the menu may be saved under its name again.
+     */
+    private static boolean moveAside(Path file, IOException failure) {
+        Path aside = file.resolveSibling(file.getFileName() + ".corrupt-" + System.currentTimeMillis());
+        try {
+            Files.move(file, aside, StandardCopyOption.ATOMIC_MOVE);
+            LOG.warn("Could not restore the menu from {}, using the default menu; the file was moved to {}", file, aside, failure);
+            return true;
+        } catch (IOException e) {
+            LOG.error("Could not restore the menu from {} nor move it aside; using the default menu and not saving it on shutdown",
+                    file, failure);
+            return false;
+        }
+    }
+
+    private static MenuSnapshot defaultMenu() {
+        Map<String, Meal> mealPrototypes = new HashMap<>();
         mealPrototypes.put("VEGGIE_BURGER", new Meal.MealBuilder("Veggie Patty").withSideDish("Salad").withDrink("Juice").build());
         mealPrototypes.put("CHICKEN_BURGER", new Meal.MealBuilder("Chicken Patty").withSideDish("Fries").withDrink("Coke").build());
         mealPrototypes.put("FISH_COMBO", new Meal.MealBuilder("Fish Fillet").withSideDish("Coleslaw").withDrink("Sprite").withDessert("Ice Cream").build());
+        return new MenuSnapshot(1, mealPrototypes);
     }
 
     public static MenuService getInstance() {
@@ -25,15 +110,199 @@ public class MenuService {
     /**
      * ## Prototype Pattern ##
      * This method acts as a registry. When a meal is requested, we clone the prototype.
+     * In flyweight mode the shared prototype is returned instead of a clone.
      */
     public Meal getMeal(String mealName) {
-        Meal prototype = mealPrototypes.get(mealName);
-        return (prototype != null) ? (Meal) prototype.clone() : null;
+        CompiledMenu menu = this.menu.get();
+        return serve(menu, menu.indexOf(mealName));
+    }
+
+    /**
+     * Like {@link #getMeal(String)}, but matches the name {@link String#equalsIgnoreCase(String) ignoring case}. If the
+     * menu has several names that differ only in case, the one spelled exactly like {@code mealName} wins.
+     */
+    public Meal getMealIgnoreCase(String mealName) {
+        CompiledMenu menu = this.menu.get();
+        return serve(menu, menu.indexOfIgnoreCase(mealName));
+    }
+
+    /**
+     * Looks a meal name up once, for callers that order the same meal many times with {@link #getMeal(MealId)}.
+     *
+     * @return The handle of the meal, or {@code null} if the menu has no meal with this name.
+     */
+    public MealId resolve(String mealName) {
+        CompiledMenu menu = this.menu.get();
+        int entry = menu.indexOf(mealName);
+        return entry < 0 ? null : new MealId(menu.nameAt(entry), menu, entry);
+    }
+
+    /**
+     * Like {@link #getMeal(String)} for a resolved name. While the menu is the one the handle was resolved against, this
+     * is a single array read; after a change it looks the name up again.
+     */
+    public Meal getMeal(MealId mealId) {
+        CompiledMenu menu = this.menu.get();
+        return serve(menu, mealId.menu() == menu ? mealId.entry() : menu.indexOf(mealId.name()));
+    }
+
+    public boolean isFlyweightMode() {
+        return flyweightMode;
+    }
+
+    public void setFlyweightMode(boolean flyweightMode) {
+        this.flyweightMode = flyweightMode;
+    }
+
+    /**
+     * @return The menu as it is right now. The returned snapshot never changes.
+     */
+    public MenuSnapshot getSnapshot() {
+        return menu.get().snapshot();
+    }
+
+    public long getVersion() {
+        return menu.get().snapshot().version();
+    }
+
+    /**
+     * Adds a meal prototype, or replaces the one with the same name.
+     * @return The version of the menu that contains the change.
+     */
+    public long addMeal(String mealName, Meal prototype) {
+        return publish(meals -> {
+            meals.put(mealName, prototype);
+            return meals;
+        });
+    }
+
+    /**
+     * Removes a meal prototype. Orders that already hold a clone of it are not affected.
+     * @return The version of the menu that contains the change.
+     */
+    public long removeMeal(String mealName) {
+        return publish(meals -> {
+            meals.remove(mealName);
+            return meals;
+        });
+    }
+
+    /**
+     * Replaces the whole menu in one step.
+     * @return The version of the new menu.
+     */
+    public long replaceMenu(Map<String, Meal> mealPrototypes) {
+        return publish(ignored -> new HashMap<>(mealPrototypes));
+    }
+
+    /**
+     * Replaces the whole menu with the meals read from a file. Nothing is published if the file cannot be parsed.
+     * <p>
+     * Each non-empty line that does not start with {@code #} describes one meal:
+     * <pre>
+     * NAME=Main Course|Side Dish|Drink|Dessert
+     * </pre>
+     * Side dish, drink and dessert are optional; an empty side dish or drink keeps the {@code MealBuilder} default,
+     * an empty dessert means no dessert.
+     *
+     * @return The version of the new menu.
+     */
+    public long reloadFrom(Path menuFile) throws IOException {
+        Map<String, Meal> mealPrototypes = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(menuFile, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int separator = line.indexOf('=');
+                if (separator <= 0) {
+                    throw new IOException(menuFile + ":" + lineNumber + ": expected NAME=Main Course|Side Dish|Drink|Dessert");
+                }
+                mealPrototypes.put(line.substring(0, separator).strip(), parseMeal(line.substring(separator + 1)));
+            }
+        }
+        return replaceMenu(mealPrototypes);
+    }
+
+    /**
+     * Writes the current menu to a binary snapshot file. The file is replaced atomically.
+     */
+    public void saveSnapshot(Path file) throws IOException {
+        MenuSnapshotFile.write(file, getSnapshot());
+    }
+
+    /**
+     * Replaces the whole menu with the one in a binary snapshot file. The file is memory-mapped and each meal is
+     * decoded on its first lookup.
+     *
+     * @return The version of the new menu: the one stored in the file, or the next version if that is not newer.
+     */
+    public long loadSnapshot(Path file) throws IOException {
+        MenuSnapshot restored = MenuSnapshotFile.read(file);
+        return menu.updateAndGet(current -> CompiledMenu.compile(
+                new MenuSnapshot(Math.max(current.snapshot().version() + 1, restored.version()), restored.meals())))
+                .snapshot().version();
+    }
+
+    /**
+     * Saves the menu to the given file when the JVM shuts down.
+     */
+    public void saveSnapshotOnShutdown(Path file) {
+        Runtime.getRuntime().addShutdownHook(Thread.ofPlatform().name("menu-snapshot").unstarted(() -> {
+            try {
+                saveSnapshot(file);
+            } catch (IOException e) {
+                LOG.error("Could not save the menu to {}", file, e);
+            }
+        }));
     }
 
     public void listMeals() {
-        System.out.println("--- Restaurant Menu ---");
-        mealPrototypes.keySet().forEach(System.out::println);
+        MenuSnapshot menu = getSnapshot();
+        System.out.println("--- Restaurant Menu (version " + menu.version() + ") ---");
+        menu.meals().keySet().forEach(System.out::println);
         System.out.println("-----------------------");
     }
+
+    private Meal serve(CompiledMenu menu, int entry) {
+        if (entry < 0) {
+            CreationMetrics.MENU_MISSES.increment();
+            return null;
+        }
+        Meal prototype = menu.mealAt(entry);
+        CreationMetrics.MENU_HITS.increment();
+        if (flyweightMode) {
+            return prototype;
+        }
+        long start = System.nanoTime();
+        Meal meal = prototype.clone();
+        CreationMetrics.MEAL_CLONE.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return meal;
+    }
+
+    private long publish(UnaryOperator<Map<String, Meal>> change) {
+        return menu.updateAndGet(current -> {
+            MenuSnapshot snapshot = current.snapshot();
+            return CompiledMenu.compile(snapshot.with(change.apply(new HashMap<>(snapshot.meals()))));
+        }).snapshot().version();
+    }
+
+    private static Meal parseMeal(String description) {
+        String[] parts = description.split("\\|", -1);
+        Meal.MealBuilder builder = new Meal.MealBuilder(parts[0].strip());
+        if (parts.length > 1 && !parts[1].isBlank()) {
+            builder.withSideDish(parts[1].strip());
+        }
+        if (parts.length > 2 && !parts[2].isBlank()) {
+            builder.withDrink(parts[2].strip());
+        }
+        if (parts.length > 3 && !parts[3].isBlank()) {
+            builder.withDessert(parts[3].strip());
+        }
+        return builder.build();
+    }
 }
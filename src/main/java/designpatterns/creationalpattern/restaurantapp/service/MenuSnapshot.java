@@ -0,0 +1,31 @@
+package designpatterns.creationalpattern.restaurantapp.service;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+
+import java.util.Map;
+
+/**
+ * An immutable, versioned view of the menu.
+ * <p>
+ * The {@link MenuService} never changes a snapshot in place. Every change builds a new snapshot with the next version
+ * number and publishes it atomically, so a reader that grabbed a snapshot keeps a consistent menu for as long as it needs it.
+ *
+ * @param version The version number. It starts at 1 and increases by one with every published change.
+ * @param meals   The meal prototypes by name. The map is an unmodifiable copy, or, for a menu restored from a binary
+ *                snapshot, a read-only map that decodes meals from the mapped file on first access.
+ */
+public record MenuSnapshot(long version, Map<String, Meal> meals) {
+
+    public MenuSnapshot {
+        // A mapped menu is already read-only; copying it would decode every meal up front.
+        meals = meals instanceof MappedMenu ? meals : Map.copyOf(meals);
+    }
+
+    public Meal get(String mealName) {
+        return meals.get(mealName);
+    }
+
+    MenuSnapshot with(Map<String, Meal> newMeals) {
+        return new MenuSnapshot(version + 1, newMeals);
+    }
+}
@@ -0,0 +1,75 @@
+package designpatterns.creationalpattern.restaurantapp.service;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import designpatterns.creationalpattern.snapshot.SnapshotHeader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads and writes the binary menu snapshot.
+ *
+ * <h2>Layout</h2>
+ * After the {@link SnapshotHeader} (kind {@link SnapshotHeader#KIND_MENU}, the menu version, the number of meals):
+ * <pre>
+ * int[count]  offset of each meal entry from the start of the file, sorted by meal name (UTF-8 bytes, unsigned)
+ * entries     name, main course, side dish, drink, dessert; each as an int byte length (-1 for null) and UTF-8 bytes
+ * </pre>
+ * Because the offsets are sorted by name, a meal can be found by binary search in the mapped file without decoding any
+ * other entry; see {@link MappedMenu}.
+ */
+final class MenuSnapshotFile {
+    static final int NULL_LENGTH = -1;
+
+    private MenuSnapshotFile() {
+    }
+
+    static void write(Path file, MenuSnapshot menu) throws IOException {
+        byte[][] names = menu.meals().keySet().stream()
+                .map(name -> name.getBytes(StandardCharsets.UTF_8))
+                .sorted(Arrays::compareUnsigned)
+                .toArray(byte[][]::new);
+        SnapshotHeader.writeAtomically(file, stream -> {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+            new SnapshotHeader(SnapshotHeader.KIND_MENU, menu.version(), names.length).write(out);
+            byte[][][] entries = new byte[names.length][][];
+            int offset = SnapshotHeader.SIZE + 4 * names.length;
+            for (int i = 0; i < names.length; i++) {
+                Meal meal = menu.get(new String(names[i], StandardCharsets.UTF_8));
+                entries[i] = new byte[][]{names[i], encode(meal.getMainCourse()), encode(meal.getSideDish()),
+                        encode(meal.getDrink()), encode(meal.getDessert())};
+                out.writeInt(offset);
+                for (byte[] field : entries[i]) {
+                    offset += 4 + (field == null ? 0 : field.length);
+                }
+            }
+            for (byte[][] entry : entries) {
+                for (byte[] field : entry) {
+                    out.writeInt(field == null ? NULL_LENGTH : field.length);
+                    if (field != null) {
+                        out.write(field);
+                    }
+                }
+            }
+            out.flush();
+        });
+    }
+
+    /**
+     * Maps a snapshot file and returns a menu whose meals are decoded on first access.
+     */
+    static MenuSnapshot read(Path file) throws IOException {
+        ByteBuffer buffer = SnapshotHeader.map(file);
+        SnapshotHeader header = SnapshotHeader.read(buffer, SnapshotHeader.KIND_MENU);
+        return new MenuSnapshot(header.dataVersion(), new MappedMenu(buffer, header.count()));
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,181 @@
+package designpatterns.creationalpattern.restaurantapp.service;
+
+import java.util.Arrays;
+
+/**
+ * A minimal perfect hash function over a fixed set of {@code int} hash codes, built with "hash and displace".
+ * <p>
+ * Every distinct hash code of the set gets its own slot in {@code [0, slots)}, with no empty slots and no collisions, so a
+ * lookup is two hash mixes, two array reads and one comparison with the stored hash code; there is no probing and no
+ * chain. Entries whose hash codes are equal (two keys that really collide, or the same name in different case for a
+ * case-insensitive table) share a slot and form its group.
+ *
+ * <h2>Construction</h2>
+ * The hash codes are spread over about {@code slots / 4} buckets. Starting with the largest bucket, each bucket searches for a
+ * displacement {@code d} that sends all its hash codes to free slots, and stores it. Buckets with a single hash code simply
+ * take the next free slot, stored as a negative number. Lookup repeats the same steps: bucket, displacement, slot.
+ */
+final class PerfectHash {
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+
+    private final long seed;
+    private final int slots;
+    // Per bucket: the displacement d > 0, or -(slot + 1) for a bucket with one hash code, or 0 for an empty bucket.
+    private final int[] displacements;
+    private final int[] slotHashes;
+    // The entries of slot s are entries[groupStarts[s] .. groupStarts[s + 1]).
+    private final int[] groupStarts;
+    private final int[] entries;
+
+    private PerfectHash(long seed, int slots, int[] displacements, int[] slotHashes, int[] groupStarts, int[] entries) {
+        this.seed = seed;
+        this.slots = slots;
+        this.displacements = displacements;
+        this.slotHashes = slotHashes;
+        this.groupStarts = groupStarts;
+        this.entries = entries;
+    }
+
+    /**
+     * @param hashes The hash code of every entry; entry {@code i} has hash code {@code hashes[i]}.
+     */
+    static PerfectHash build(int[] hashes) {
+        int[] distinct = Arrays.stream(hashes).distinct().toArray();
+        for (long seed = 0x9E3779B97F4A7C15L; ; seed = mix(seed, 1)) {
+            PerfectHash table = tryBuild(seed, hashes, distinct);
+            if (table != null) {
+                return table;
+            }
+        }
+    }
+
+    /**
+     * @return The slot of the hash code, or -1 if it is not in the set.
+     */
+    int slotOf(int hash) {
+        if (slots == 0) {
+            return -1;
+        }
+        int displacement = displacements[reduce(mix(hash ^ seed, 0), displacements.length)];
+        int slot;
+        if (displacement > 0) {
+            slot = reduce(mix(hash ^ seed, displacement), slots);
+        } else if (displacement < 0) {
+            slot = -displacement - 1;
+        } else {
+            return -1;
+        }
+        return slotHashes[slot] == hash ? slot : -1;
+    }
+
+    int groupStart(int slot) {
+        return groupStarts[slot];
+    }
+
+    int groupEnd(int slot) {
+        return groupStarts[slot + 1];
+    }
+
+    int entryAt(int position) {
+        return entries[position];
+    }
+
+    private static PerfectHash tryBuild(long seed, int[] hashes, int[] distinct) {
+        int slots = distinct.length;
+        int bucketCount = Math.max(1, slots / 4);
+        int[][] buckets = new int[bucketCount][];
+        int[] bucketSizes = new int[bucketCount];
+        for (int hash : distinct) {
+            int bucket = reduce(mix(hash ^ seed, 0), bucketCount);
+            if (buckets[bucket] == null) {
+                buckets[bucket] = new int[2];
+            } else if (bucketSizes[bucket] == buckets[bucket].length) {
+                buckets[bucket] = Arrays.copyOf(buckets[bucket], bucketSizes[bucket] * 2);
+            }
+            buckets[bucket][bucketSizes[bucket]++] = hash;
+        }
+        Integer[] order = new Integer[bucketCount];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Integer.compare(bucketSizes[b], bucketSizes[a]));
+
+        int[] displacements = new int[bucketCount];
+        int[] slotHashes = new int[slots];
+        boolean[] taken = new boolean[slots];
+        int[] candidate = new int[16];
+        int nextFree = 0;
+        for (int bucket : order) {
+            int size = bucketSizes[bucket];
+            if (size == 0) {
+                break;
+            }
+            if (size == 1) {
+                while (taken[nextFree]) {
+                    nextFree++;
+                }
+                taken[nextFree] = true;
+                slotHashes[nextFree] = buckets[bucket][0];
+                displacements[bucket] = -nextFree - 1;
+                continue;
+            }
+            if (candidate.length < size) {
+                candidate = new int[size];
+            }
+            int displacement = 1;
+            search:
+            for (; displacement <= MAX_DISPLACEMENT; displacement++) {
+                for (int i = 0; i < size; i++) {
+                    int slot = reduce(mix(buckets[bucket][i] ^ seed, displacement), slots);
+                    if (taken[slot]) {
+                        continue search;
+                    }
+                    for (int j = 0; j < i; j++) {
+                        if (candidate[j] == slot) {
+                            continue search;
+                        }
+                    }
+                    candidate[i] = slot;
+                }
+                break;
+            }
+            if (displacement > MAX_DISPLACEMENT) {
+                // Unlucky seed; the caller tries the next one.
+                return null;
+            }
+            for (int i = 0; i < size; i++) {
+                taken[candidate[i]] = true;
+                slotHashes[candidate[i]] = buckets[bucket][i];
+            }
+            displacements[bucket] = displacement;
+        }
+
+        PerfectHash table = new PerfectHash(seed, slots, displacements, slotHashes, new int[slots + 1], new int[hashes.length]);
+        // Group the entries by slot (a counting sort).
+        int[] slotOfEntry = new int[hashes.length];
+        for (int entry = 0; entry < hashes.length; entry++) {
+            slotOfEntry[entry] = table.slotOf(hashes[entry]);
+            table.groupStarts[slotOfEntry[entry] + 1]++;
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            table.groupStarts[slot + 1] += table.groupStarts[slot];
+        }
+        int[] fill = Arrays.copyOf(table.groupStarts, slots);
+        for (int entry = 0; entry < hashes.length; entry++) {
+            table.entries[fill[slotOfEntry[entry]]++] = entry;
+        }
+        return table;
+    }
+
+    private static long mix(long key, int displacement) {
+        long x = key * 0x9E3779B97F4A7C15L + displacement * 0xC2B2AE3D27D4EB4FL;
+        x ^= x >>> 32;
+        x *= 0xD6E8FEB86659FD93L;
+        return x ^ (x >>> 32);
+    }
+
+    /**
+     * Maps a hash to {@code [0, range)} with a multiplication instead of a division.
+     */
+    private static int reduce(long hash, int range) {
+        return (int) (((hash & 0xFFFFFFFFL) * range) >>> 32);
+    }
+}
@@ -0,0 +1,246 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+import designpatterns.creationalpattern.restaurantapp.journal.OrderJournal;
+import designpatterns.creationalpattern.restaurantapp.kitchen.Cuisine;
+import designpatterns.creationalpattern.restaurantapp.kitchen.CuisineRegistry;
+import designpatterns.creationalpattern.restaurantapp.kitchen.Restaurant;
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import designpatterns.creationalpattern.restaurantapp.service.MenuService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dispatches orders to the {@link Restaurant} kitchens without tying up the HTTP event loop.
+ *
+ * <h2>Kitchen capacity and backpressure</h2>
+ * {@link Restaurant#serveMeal()} is plain blocking code, so it runs on a dedicated, bounded "kitchen" scheduler with
+ * {@code restaurant.kitchen.capacity} threads. The rest of the request is handled by the few WebFlux event-loop threads;
+ * there is no thread per request.
+ * <ul>
+ *     <li><b>Single orders</b> are rejected with {@code 429 Too Many Requests} while the kitchen already has
+ *     {@code capacity} orders in progress, so clients learn immediately that they should slow down.</li>
+ *     <li><b>Bulk orders</b> arrive as a stream. At most {@code restaurant.kitchen.bulk-concurrency} orders of one stream
+ *     (never more than {@code capacity}) are in the kitchen at a time, and the next order is only requested from the stream
+ *     when one finishes. That demand travels back through the request body to the TCP connection, so a fast client is slowed
+ *     down to the kitchen's pace instead of filling a queue.</li>
+ * </ul>
+ * Both kinds of orders share the same {@code capacity} permits. A bulk order that finds the kitchen full neither fails nor
+ * polls: it joins a queue of waiting bulk orders, without holding a thread, and the next order that leaves the kitchen hands
+ * its permit to the first one in that queue. So any number of bulk streams together never have more than {@code capacity}
+ * orders in the kitchen. An order that waits longer than 30 seconds gives up with {@code 429}. An order of a stream that
+ * fails, for example because its meal is not on the menu or it waited too long, becomes a confirmation with an
+ * {@code error} instead of ending the stream, so the orders behind it are still served.
+ * <p>
+ * The scheduler's task queue is bounded too. If it is ever full, the order fails with {@code 503 Service Unavailable}.
+ *
+ * <h2>Order journal</h2>
+ * When {@code restaurant.journal.directory} is set, every order the kitchen has served is appended to an
+ * {@link OrderJournal} in that directory, once, with the meal the customer got. Orders that are rejected (429, 503, unknown
+ * meal or cuisine) or whose cooking fails are not journaled, so the journal's sequence numbers count served orders and a
+ * replay sees exactly those. Appending only writes into a memory-mapped file, so the order does not wait for the disk.
+ */
+@Service
+public class KitchenService implements DisposableBean {
+    private static final long BULK_PERMIT_TIMEOUT_SECONDS = 30;
+
+    private final MenuService menu = MenuService.getInstance();
+    // One restaurant per cuisine of the CuisineRegistry, created on the first order for that cuisine.
+    private final Map<Cuisine, Restaurant> kitchens = new ConcurrentHashMap<>();
+    private final AtomicLong orderIds = new AtomicLong();
+    // Permits in use: orders in the kitchen, plus permits just handed to a waiting bulk order.
+    private final AtomicInteger inProgress = new AtomicInteger();
+    // Bulk orders waiting for a permit, in arrival order.
+    private final Queue<PermitWaiter> waiting = new ConcurrentLinkedQueue<>();
+    private final int capacity;
+    private final int bulkConcurrency;
+    private final Scheduler kitchenScheduler;
+    // Null when no journal directory is configured.
+    private final OrderJournal journal;
+
+    /**
+     * @param journalDirectory Where the {@link OrderJournal} of served orders lives; empty for no journal.
+     * @throws IOException if the journal cannot be opened.
+     */
+    public KitchenService(@Value("${restaurant.kitchen.capacity:64}") int capacity,
+                          @Value("${restaurant.kitchen.bulk-concurrency:64}") int bulkConcurrency,
+                          @Value("${restaurant.kitchen.queue-capacity:10000}") int queueCapacity,
+                          @Value("${restaurant.journal.directory:}") String journalDirectory) throws IOException {
+        this.capacity = capacity;
+        // More would only queue up as waiters behind the stream's own orders.
+        this.bulkConcurrency = Math.min(bulkConcurrency, capacity);
+        this.journal = journalDirectory.isBlank() ? null : new OrderJournal(Path.of(journalDirectory));
+        this.kitchenScheduler = Schedulers.newBoundedElastic(capacity, queueCapacity, "kitchen");
+    }
+
+    /**
+     * Serves one order, or fails fast with 429 if the kitchen is at capacity.
+     */
+    public Mono<OrderConfirmation> placeOrder(OrderRequest order) {
+        return Mono.defer(() -> tryServe(order));
+    }
+
+    /**
+     * Serves a stream of orders, pulling new orders from the stream only as fast as the kitchen completes them.
+     * Confirmations are emitted in completion order; an order that cannot be served is confirmed with an error.
+     */
+    public Flux<OrderConfirmation> placeOrders(Flux<OrderRequest> orders) {
+        return orders.flatMap(order -> acquirePermit()
+                .timeout(Duration.ofSeconds(BULK_PERMIT_TIMEOUT_SECONDS), Mono.error(() -> new ResponseStatusException(
+                        HttpStatus.TOO_MANY_REQUESTS, "Kitchen stayed at capacity for " + BULK_PERMIT_TIMEOUT_SECONDS + " s")))
+                .then(Mono.defer(() -> serve(order)).doFinally(signal -> releasePermit()))
+                .onErrorResume(e -> Mono.just(OrderConfirmation.rejected(order, reason(e)))), bulkConcurrency);
+    }
+
+    public int getOrdersInProgress() {
+        return inProgress.get();
+    }
+
+    /**
+     * @return The journal of served orders, or {@code null} if none is configured.
+     */
+    public OrderJournal getOrderJournal() {
+        return journal;
+    }
+
+    /**
+     * Serves the order if the kitchen has a free permit, otherwise fails with 429.
+     */
+    private Mono<OrderConfirmation> tryServe(OrderRequest order) {
+        if (!tryAcquirePermit()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Kitchen is at capacity"));
+        }
+        return Mono.defer(() -> serve(order)).doFinally(signal -> releasePermit());
+    }
+
+    /**
+     * Completes when the caller holds a permit: at once if one is free, otherwise when a finishing order hands its permit
+     * over. Cancelling while waiting leaves the queue, and a permit handed over at that moment goes back to the pool.
+     */
+    private Mono<Void> acquirePermit() {
+        return Mono.create(sink -> {
+            if (tryAcquirePermit()) {
+                sink.success();
+                return;
+            }
+            PermitWaiter waiter = new PermitWaiter(sink);
+            sink.onCancel(() -> {
+                if (waiter.cancel()) {
+                    waiting.remove(waiter);
+                } else {
+                    releasePermit();
+                }
+            });
+            waiting.offer(waiter);
+            // A permit released after the failed attempt above found nobody waiting yet; pick it up now.
+            grantWaiting();
+        });
+    }
+
+    private boolean tryAcquirePermit() {
+        while (true) {
+            int current = inProgress.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (inProgress.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void releasePermit() {
+        inProgress.decrementAndGet();
+        grantWaiting();
+    }
+
+    /**
+     * Hands free permits to waiting bulk orders, first come first served.
+     */
+    private void grantWaiting() {
+        while (!waiting.isEmpty() && tryAcquirePermit()) {
+            PermitWaiter waiter = waiting.poll();
+            if (waiter == null || !waiter.grant()) {
+                // Nobody took it: the queue was emptied by another thread, or the order was cancelled meanwhile.
+                inProgress.decrementAndGet();
+            }
+        }
+    }
+
+    private static String reason(Throwable e) {
+        return e instanceof ResponseStatusException status && status.getReason() != null ? status.getReason() : e.toString();
+    }
+
+    private Mono<OrderConfirmation> serve(OrderRequest order) {
+        Cuisine cuisine = order.cuisine() == null ? null : CuisineRegistry.find(order.cuisine());
+        if (cuisine == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown cuisine: " + order.cuisine()));
+        }
+        Restaurant restaurant = kitchens.computeIfAbsent(cuisine, c -> Restaurant.forCuisine(c.name()));
+        Meal meal = order.mealName() == null ? null : menu.getMeal(order.mealName());
+        if (meal == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown meal: " + order.mealName()));
+        }
+        return Mono.fromCallable(() -> {
+                    restaurant.serveMeal();
+                    if (journal != null) {
+                        journal.append(meal);
+                    }
+                    return new OrderConfirmation(orderIds.incrementAndGet(), cuisine.name(), order.mealName(), meal);
+                })
+                .subscribeOn(kitchenScheduler)
+                .onErrorMap(RejectedExecutionException.class,
+                        e -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Kitchen queue is full", e));
+    }
+
+    /**
+     * A bulk order waiting for a permit. Granting and cancelling race; exactly one of them wins.
+     */
+    private static final class PermitWaiter {
+        private final MonoSink<Void> sink;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        PermitWaiter(MonoSink<Void> sink) {
+            this.sink = sink;
+        }
+
+        boolean grant() {
+            if (!settled.compareAndSet(false, true)) {
+                return false;
+            }
+            sink.success();
+            return true;
+        }
+
+        boolean cancel() {
+            return settled.compareAndSet(false, true);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        kitchenScheduler.dispose();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The {@value #MEDIA_TYPE_VALUE} wire format of a {@link Meal}, written by {@link MealEncoder} and read by
+ * {@link MealDecoder}.
+ *
+ * <h2>Layout</h2>
+ * A body is a sequence of frames, one per meal, so a single meal and a stream of meals look the same:
+ * <pre>
+ * varint  frame length in bytes
+ * 4 x     varint (UTF-8 length + 1, 0 for null) and the UTF-8 bytes of main course, side dish, drink and dessert
+ * </pre>
+ * Varints use 7 bits per byte, least significant group first. A typical meal takes 30 to 50 bytes, about half of its
+ * JSON form.
+ *
+ * <h2>No copies</h2>
+ * ASCII parts (the usual case) are written straight from the {@code String} into the {@link DataBuffer}, and parts are
+ * decoded straight from the buffer with {@link DataBuffer#toString(int, int, java.nio.charset.Charset)}; neither side
+ * creates an intermediate {@code byte[]}. Only parts with other characters are encoded with {@code String.getBytes} first.
+ */
+public final class MealBinaryFormat {
+    public static final String MEDIA_TYPE_VALUE = "application/x-meal";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private MealBinaryFormat() {
+    }
+
+    /**
+     * @return The number of bytes {@link #write(DataBuffer, Meal)} writes for the meal.
+     */
+    static int frameSize(Meal meal) {
+        int payload = partSize(meal.getMainCourse()) + partSize(meal.getSideDish()) + partSize(meal.getDrink())
+                + partSize(meal.getDessert());
+        return varintSize(payload) + payload;
+    }
+
+    static void write(DataBuffer buffer, Meal meal) {
+        int payload = partSize(meal.getMainCourse()) + partSize(meal.getSideDish()) + partSize(meal.getDrink())
+                + partSize(meal.getDessert());
+        writeVarint(buffer, payload);
+        writePart(buffer, meal.getMainCourse());
+        writePart(buffer, meal.getSideDish());
+        writePart(buffer, meal.getDrink());
+        writePart(buffer, meal.getDessert());
+    }
+
+    /**
+     * @return True if the buffer holds at least one complete frame from its read position on.
+     * @throws DecodingException if the frame length is malformed or negative.
+     */
+    static boolean hasFrame(DataBuffer buffer) {
+        int available = buffer.readableByteCount();
+        int index = buffer.readPosition();
+        int length = 0;
+        for (int i = 0, shift = 0; i < 5; i++, shift += 7) {
+            if (i >= available) {
+                return false;
+            }
+            byte b = buffer.getByte(index + i);
+            if (i == 4 && (b & 0xF8) != 0) {
+                // More than 31 bits: the length would overflow or be negative.
+                throw new DecodingException("Meal frame length out of range");
+            }
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return available - i - 1 >= length;
+            }
+        }
+        throw new DecodingException("Malformed meal frame length");
+    }
+
+    /**
+     * Reads one frame, which must be complete (see {@link #hasFrame(DataBuffer)}), and moves the read position behind it.
+     * Nothing behind the frame is read, whatever its content.
+     */
+    static Meal read(DataBuffer buffer) {
+        int length = readVarint(buffer, buffer.readPosition() + buffer.readableByteCount());
+        int end = buffer.readPosition() + length;
+        Meal meal = new Meal.MealBuilder(readPart(buffer, end))
+                .withSideDish(readPart(buffer, end))
+                .withDrink(readPart(buffer, end))
+                .withDessert(readPart(buffer, end))
+                .build();
+        if (buffer.readPosition() != end) {
+            throw new DecodingException("Meal frame has " + (end - buffer.readPosition()) + " unexpected bytes");
+        }
+        return meal;
+    }
+
+    private static int partSize(String part) {
+        if (part == null) {
+            return 1;
+        }
+        int length = utf8Length(part);
+        return varintSize(length + 1) + length;
+    }
+
+    private static void writePart(DataBuffer buffer, String part) {
+        if (part == null) {
+            buffer.write((byte) 0);
+            return;
+        }
+        if (isAscii(part)) {
+            writeVarint(buffer, part.length() + 1);
+            buffer.write(part, StandardCharsets.US_ASCII);
+        } else {
+            byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+            writeVarint(buffer, bytes.length + 1);
+            buffer.write(bytes);
+        }
+    }
+
+    private static String readPart(DataBuffer buffer, int end) {
+        int encodedLength = readVarint(buffer, end);
+        if (encodedLength == 0) {
+            return null;
+        }
+        int length = encodedLength - 1;
+        int start = buffer.readPosition();
+        if (length > end - start) {
+            throw new DecodingException("Meal part of " + length + " bytes exceeds its frame");
+        }
+        String part = buffer.toString(start, length, StandardCharsets.UTF_8);
+        buffer.readPosition(start + length);
+        return part;
+    }
+
+    private static void writeVarint(DataBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.write((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.write((byte) value);
+    }
+
+    /**
+     * Reads a non-negative varint that must end before {@code end}.
+     */
+    private static int readVarint(DataBuffer buffer, int end) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (buffer.readPosition() >= end) {
+                throw new DecodingException("Truncated varint in meal frame");
+            }
+            byte b = buffer.read();
+            if (shift == 28 && (b & 0xF8) != 0) {
+                throw new DecodingException("Varint out of range in meal frame");
+            }
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new DecodingException("Malformed varint in meal frame");
+    }
+
+    private static int varintSize(int value) {
+        return (38 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+    }
+
+    private static boolean isAscii(String part) {
+        for (int i = 0; i < part.length(); i++) {
+            if (part.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The length of the string in UTF-8, as {@code String.getBytes(UTF_8)} encodes it (an unpaired surrogate
+     * becomes one {@code '?'}).
+     */
+    private static int utf8Length(String part) {
+        int length = part.length();
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    length += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < part.length()
+                        && Character.isLowSurrogate(part.charAt(i + 1))) {
+                    // Two chars, four bytes.
+                    length += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    length += 2;
+                }
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,21 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Registers the {@link MealEncoder} next to the default codecs. A client that accepts
+ * {@value MealBinaryFormat#MEDIA_TYPE_VALUE} gets meals in the binary format; every other client keeps getting JSON.
+ * <p>
+ * No endpoint reads meals from a request body, so the {@link MealDecoder} is not registered: it would only widen what the
+ * server parses. It is there for clients of this server, for example in a {@code WebClient}'s codecs.
+ */
+@Configuration
+public class MealCodecConfiguration implements WebFluxConfigurer {
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.customCodecs().register(new MealEncoder());
+    }
+}
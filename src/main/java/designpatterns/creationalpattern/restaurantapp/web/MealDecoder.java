@@ -0,0 +1,92 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads {@link Meal}s in the {@link MealBinaryFormat}. The body is collected into one buffer (at most
+ * {@link #getMaxInMemorySize()} bytes) and the meals are read from it directly; a meal is built with a
+ * {@code MealBuilder}, so it is shared when meal interning is on.
+ * <p>
+ * The server only writes this format (see {@link MealCodecConfiguration}); this decoder is for its clients, for
+ * example registered with {@code WebClient.builder().codecs(...)}.
+ */
+public class MealDecoder extends AbstractDecoder<Meal> {
+    private int maxInMemorySize = 256 * 1024;
+
+    public MealDecoder() {
+        super(MealBinaryFormat.MEDIA_TYPE);
+    }
+
+    public int getMaxInMemorySize() {
+        return maxInMemorySize;
+    }
+
+    /**
+     * @param maxInMemorySize The largest body accepted, in bytes; -1 for no limit.
+     */
+    public void setMaxInMemorySize(int maxInMemorySize) {
+        this.maxInMemorySize = maxInMemorySize;
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return elementType.toClass() == Meal.class && super.canDecode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<Meal> decode(Publisher<DataBuffer> inputStream, ResolvableType elementType, MimeType mimeType,
+                             Map<String, Object> hints) {
+        return DataBufferUtils.join(inputStream, maxInMemorySize)
+                .flatMapIterable(buffer -> {
+                    try {
+                        List<Meal> meals = new ArrayList<>();
+                        while (buffer.readableByteCount() > 0) {
+                            meals.add(readFrame(buffer));
+                        }
+                        return meals;
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                });
+    }
+
+    @Override
+    public Mono<Meal> decodeToMono(Publisher<DataBuffer> inputStream, ResolvableType elementType, MimeType mimeType,
+                                   Map<String, Object> hints) {
+        return DataBufferUtils.join(inputStream, maxInMemorySize)
+                .map(buffer -> decode(buffer, elementType, mimeType, hints));
+    }
+
+    @Override
+    public Meal decode(DataBuffer buffer, ResolvableType targetType, MimeType mimeType, Map<String, Object> hints) {
+        try {
+            Meal meal = readFrame(buffer);
+            if (buffer.readableByteCount() > 0) {
+                throw new DecodingException("Expected one meal, found more data");
+            }
+            return meal;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static Meal readFrame(DataBuffer buffer) {
+        if (!MealBinaryFormat.hasFrame(buffer)) {
+            throw new DecodingException("Incomplete meal frame");
+        }
+        return MealBinaryFormat.read(buffer);
+    }
+}
@@ -0,0 +1,52 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractEncoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/**
+ * Writes {@link Meal}s in the {@link MealBinaryFormat}. Each meal is written into one buffer of exactly its size, taken
+ * from the server's buffer factory (pooled under Reactor Netty).
+ */
+public class MealEncoder extends AbstractEncoder<Meal> {
+
+    public MealEncoder() {
+        super(MealBinaryFormat.MEDIA_TYPE);
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return Meal.class.isAssignableFrom(elementType.toClass()) && super.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends Meal> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        return Flux.from(inputStream).map(meal -> encodeValue(meal, bufferFactory, elementType, mimeType, hints));
+    }
+
+    @Override
+    public DataBuffer encodeValue(Meal meal, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(MealBinaryFormat.frameSize(meal));
+        boolean release = true;
+        try {
+            MealBinaryFormat.write(buffer, meal);
+            release = false;
+            return buffer;
+        } finally {
+            // A pooled buffer that is not handed on must go back to the pool.
+            if (release) {
+                DataBufferUtils.release(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+
+/**
+ * One entry of the menu as exposed over HTTP.
+ */
+public record MenuItem(String name, Meal meal) {
+}
@@ -0,0 +1,21 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+
+/**
+ * The answer to an {@link OrderRequest} once the kitchen has served it, or, in a bulk stream, once the order was rejected.
+ *
+ * @param orderId The id of the served order; 0 for a rejected one.
+ * @param meal    The served meal; {@code null} for a rejected order.
+ * @param error   Why the order was rejected, e.g. an unknown meal; {@code null} for a served order.
+ */
+public record OrderConfirmation(long orderId, String cuisine, String mealName, Meal meal, String error) {
+
+    public OrderConfirmation(long orderId, String cuisine, String mealName, Meal meal) {
+        this(orderId, cuisine, mealName, meal, null);
+    }
+
+    static OrderConfirmation rejected(OrderRequest order, String error) {
+        return new OrderConfirmation(0, order.cuisine(), order.mealName(), null, error);
+    }
+}
@@ -0,0 +1,62 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import designpatterns.creationalpattern.restaurantapp.service.MenuService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The HTTP entry point of the restaurant.
+ * <ul>
+ *     <li>{@code GET /menu} - every meal on the current menu.</li>
+ *     <li>{@code GET /menu/{name}} - one meal, as JSON or, with {@code Accept: application/x-meal}, in the
+ *     {@link MealBinaryFormat}.</li>
+ *     <li>{@code POST /orders} - one {@link OrderRequest} as JSON.</li>
+ *     <li>{@code POST /orders/bulk} - a stream of {@link OrderRequest}s as newline-delimited JSON (or a JSON array).
+ *     Confirmations are streamed back as newline-delimited JSON while the kitchen works through the stream.</li>
+ * </ul>
+ */
+@RestController
+public class OrderController {
+    private final MenuService menu = MenuService.getInstance();
+    private final KitchenService kitchen;
+
+    public OrderController(KitchenService kitchen) {
+        this.kitchen = kitchen;
+    }
+
+    @GetMapping("/menu")
+    public Flux<MenuItem> menu() {
+        return Flux.fromIterable(menu.getSnapshot().meals().entrySet())
+                .map(entry -> new MenuItem(entry.getKey(), entry.getValue()));
+    }
+
+    @GetMapping("/menu/{name}")
+    public Mono<Meal> meal(@PathVariable String name) {
+        Meal meal = menu.getMeal(name);
+        if (meal == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown meal: " + name));
+        }
+        return Mono.just(meal);
+    }
+
+    @PostMapping(path = "/orders", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<OrderConfirmation> order(@RequestBody Mono<OrderRequest> order) {
+        return order.flatMap(kitchen::placeOrder);
+    }
+
+    @PostMapping(path = "/orders/bulk",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<OrderConfirmation> bulkOrder(@RequestBody Flux<OrderRequest> orders) {
+        return kitchen.placeOrders(orders);
+    }
+}
@@ -0,0 +1,10 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+/**
+ * An order as sent by a client: a meal from the menu, prepared by the kitchen of the given cuisine.
+ *
+ * @param mealName The menu name of the meal, e.g. {@code VEGGIE_BURGER}.
+ * @param cuisine  The kitchen that serves it: any cuisine of the {@code CuisineRegistry}, e.g. {@code italian} or {@code mexican}.
+ */
+public record OrderRequest(String mealName, String cuisine) {
+}
@@ -0,0 +1,18 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Runs the restaurant as a non-blocking WebFlux HTTP service.
+ * <p>
+ * Where {@link designpatterns.creationalpattern.restaurantapp.RestaurantApp} walks through the patterns on the console,
+ * this application puts the same objects behind HTTP: the {@code MenuService} singleton provides the menu, and orders are
+ * served by the {@code Restaurant} kitchens through the {@link KitchenService}.
+ */
+@SpringBootApplication
+public class RestaurantWebApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(RestaurantWebApplication.class, args);
+    }
+}
@@ -0,0 +1,234 @@
+package designpatterns.creationalpattern.singleton;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free pool of {@link DBConnection}s. It is the resource that the `DBInstance` singleton manages.
+ *
+ * <h2>Why striping?</h2>
+ * A single shared free list turns into the point where every thread queues up, which is exactly what a Singleton
+ * is often blamed for. Instead, idle connections are spread over several small <b>stripes</b>. A thread always looks
+ * in "its" stripe first, chosen from its thread id, so threads mostly touch different memory and do not contend.
+ * Java does not expose the current CPU core, so the stripe count is sized from the number of available processors
+ * and the thread id is used as the spreading key.
+ *
+ * <h2>Acquisition order</h2>
+ * <ol>
+ *     <li>Take a connection from the caller's own stripe.</li>
+ *     <li>Take one from the shared, lock-free overflow queue.</li>
+ *     <li>Create a new connection if the pool has not reached its maximum size.</li>
+ *     <li>Steal from another thread's stripe.</li>
+ *     <li>Otherwise back off (spin, then park for exponentially longer periods) and retry until the timeout expires.</li>
+ * </ol>
+ * Releasing does the opposite: the connection goes into a free slot of the caller's stripe, or into the overflow queue when the stripe is full.
+ * All hand-offs use compare-and-set, so no thread ever blocks on a lock.
+ *
+ * <h2>Leases</h2>
+ * The pool reuses a small set of connections, but every lease returns a new {@link DBConnection} that carries the lease's
+ * generation. Releasing compares that generation with the connection's current one, so closing a handle twice, or
+ * closing a handle kept from an earlier lease, fails with an {@link IllegalStateException} instead of returning a
+ * connection that somebody else is using right now.
+ *
+ * <h2>Leak detection</h2>
+ * Every lease remembers when and by which thread it was taken. {@link #findLeaks(Duration)} lists the connections that
+ * have been out for longer than a threshold, which usually means a caller forgot to release them.
+ */
+public class ConnectionPool {
+    // Slots per stripe, and the distance between stripes in the slot array (16 references = 64 bytes with
+    // compressed oops), so that two stripes never share a cache line.
+    private static final int SLOTS_PER_STRIPE = 4;
+    private static final int STRIPE_STRIDE = 16;
+    private static final int SPINS_BEFORE_PARK = 64;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final int maxSize;
+    private final int stripeMask;
+    private final AtomicReferenceArray<PooledConnection> stripes;
+    private final ConcurrentLinkedQueue<PooledConnection> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicReferenceArray<PooledConnection> allConnections;
+    private final AtomicInteger created = new AtomicInteger();
+
+    public ConnectionPool(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.stripeMask = stripeCount - 1;
+        this.stripes = new AtomicReferenceArray<>(stripeCount * STRIPE_STRIDE);
+        this.allConnections = new AtomicReferenceArray<>(maxSize);
+    }
+
+    /**
+     * Leases a connection, waiting at most the given time for one to become available.
+     *
+     * @throws TimeoutException if no connection could be leased in time.
+     */
+    public DBConnection lease(long timeout, TimeUnit unit) throws TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long parkNanos = 1_000;
+        int attempts = 0;
+        while (true) {
+            DBConnection connection = tryLease();
+            if (connection != null) {
+                return connection;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException("No connection available within " + unit.toMillis(timeout) + " ms (pool size " + maxSize + ")");
+            }
+            if (++attempts < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(Math.min(parkNanos, remaining));
+                parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Leases a connection without waiting.
+     *
+     * @return A connection, or `null` if the pool is exhausted right now.
+     */
+    public DBConnection tryLease() {
+        int home = homeStripe();
+        while (true) {
+            PooledConnection connection = pollStripe(home);
+            if (connection == null) {
+                connection = overflow.poll();
+            }
+            if (connection == null) {
+                connection = create();
+            }
+            if (connection == null) {
+                connection = steal(home);
+            }
+            if (connection == null) {
+                return null;
+            }
+            DBConnection lease = connection.lease();
+            if (lease != null) {
+                return lease;
+            }
+            // A connection that is leased right now. Only a successful release puts a connection back, so this should
+            // not happen; if it does, drop the reference and look again. Its current lessee puts it back on release.
+        }
+    }
+
+    /**
+     * Returns a leased connection to the pool.
+     *
+     * @throws IllegalArgumentException if the connection belongs to another pool.
+     * @throws IllegalStateException    if this lease has already been released, e.g. by closing the handle twice or
+     *                                  closing a handle kept from an earlier lease of the same connection.
+     */
+    public void release(DBConnection lease) {
+        PooledConnection connection = lease.connection();
+        if (connection.pool() != this) {
+            throw new IllegalArgumentException("Connection " + lease.getId() + " does not belong to this pool");
+        }
+        if (!connection.release(lease.lease())) {
+            throw new IllegalStateException("Connection " + lease.getId() + " is no longer leased by this handle");
+        }
+        int base = homeStripe() * STRIPE_STRIDE;
+        for (int i = 0; i < SLOTS_PER_STRIPE; i++) {
+            if (stripes.get(base + i) == null && stripes.compareAndSet(base + i, null, connection)) {
+                return;
+            }
+        }
+        overflow.offer(connection);
+    }
+
+    /**
+     * Lists the leases that have been held for longer than the given threshold.
+     */
+    public List<DBConnection> findLeaks(Duration threshold) {
+        long now = System.nanoTime();
+        long thresholdNanos = threshold.toNanos();
+        List<DBConnection> leaks = new ArrayList<>();
+        int count = Math.min(created.get(), maxSize);
+        for (int i = 0; i < count; i++) {
+            PooledConnection connection = allConnections.get(i);
+            DBConnection lease = connection == null ? null : connection.currentLease();
+            if (lease != null && lease.isLeased() && now - lease.leasedAtNanos() > thresholdNanos) {
+                leaks.add(lease);
+            }
+        }
+        return leaks;
+    }
+
+    /**
+     * Logs a warning for every lease found by {@link #findLeaks(Duration)}.
+     */
+    public void reportLeaks(Duration threshold) {
+        long now = System.nanoTime();
+        for (DBConnection lease : findLeaks(threshold)) {
+            long heldMillis = TimeUnit.NANOSECONDS.toMillis(now - lease.leasedAtNanos());
+            LOG.warn("Possible leak: connection {} leased by {} for {} ms", lease.getId(), lease.leasedBy(), heldMillis);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return The number of connections created so far (never more than the maximum size).
+     */
+    public int getCreatedCount() {
+        return Math.min(created.get(), maxSize);
+    }
+
+    private int homeStripe() {
+        long id = Thread.currentThread().threadId();
+        return (int) (id ^ (id >>> 16)) & stripeMask;
+    }
+
+    private PooledConnection pollStripe(int stripe) {
+        int base = stripe * STRIPE_STRIDE;
+        for (int i = 0; i < SLOTS_PER_STRIPE; i++) {
+            PooledConnection connection = stripes.get(base + i);
+            if (connection != null && stripes.compareAndSet(base + i, connection, null)) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    private PooledConnection steal(int home) {
+        for (int offset = 1; offset <= stripeMask; offset++) {
+            PooledConnection connection = pollStripe((home + offset) & stripeMask);
+            if (connection != null) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    private PooledConnection create() {
+        while (true) {
+            int current = created.get();
+            if (current >= maxSize) {
+                return null;
+            }
+            if (created.compareAndSet(current, current + 1)) {
+                PooledConnection connection = new PooledConnection(current, this);
+                allConnections.set(current, connection);
+                return connection;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package designpatterns.creationalpattern.singleton;
+
+/**
+ * One lease of a pooled connection, handed out by the `ConnectionPool` behind `DBInstance`.
+ * <p>
+ * It stands in for a real database connection. The pool reuses the underlying connection across many leases, but
+ * every lease gets a new {@code DBConnection} that is valid only until its `close()` (or `DBInstance.release(...)`).
+ * A handle kept after that cannot run statements or release the connection again, so it never disturbs whoever leases
+ * the connection next.
+ * Implementing {@link AutoCloseable} lets callers return it with try-with-resources:
+ * <pre>{@code
+ * try (DBConnection connection = DBInstance.getInstance().lease()) {
+ *     connection.execute("SELECT 1");
+ * }
+ * }</pre>
+ */
+public final class DBConnection implements AutoCloseable {
+    private final PooledConnection connection;
+    private final long lease;
+    private final long leasedAt;
+    private final String leasedBy;
+
+    DBConnection(PooledConnection connection, long lease, long leasedAt, String leasedBy) {
+        this.connection = connection;
+        this.lease = lease;
+        this.leasedAt = leasedAt;
+        this.leasedBy = leasedBy;
+    }
+
+    /**
+     * @return The id of the underlying connection, the same for every lease of it.
+     */
+    public int getId() {
+        return connection.id();
+    }
+
+    public void execute(String statement) {
+        if (!isLeased()) {
+            throw new IllegalStateException("Connection " + getId() + " used after it was released");
+        }
+        System.out.println("Connection " + getId() + " executing: " + statement);
+    }
+
+    /**
+     * Returns this connection to the pool it was leased from.
+     *
+     * @throws IllegalStateException if this lease has already been released.
+     */
+    @Override
+    public void close() {
+        connection.pool().release(this);
+    }
+
+    /**
+     * @return {@code true} until this lease is released.
+     */
+    public boolean isLeased() {
+        return connection.isLeasedAs(lease);
+    }
+
+    PooledConnection connection() {
+        return connection;
+    }
+
+    long lease() {
+        return lease;
+    }
+
+    long leasedAtNanos() {
+        return leasedAt;
+    }
+
+    String leasedBy() {
+        return leasedBy;
+    }
+
+    @Override
+    public String toString() {
+        return "DBConnection{id=" + getId() + ", leased=" + isLeased() + '}';
+    }
+}
@@ -1,5 +1,10 @@
 package designpatterns.creationalpattern.singleton;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * This class is an example of the Singleton design pattern.
  * It uses the "Initialization-on-demand holder idiom", which is a thread-safe and lazy-initialized way to implement a Singleton.
@@ -23,13 +28,24 @@ package designpatterns.creationalpattern.singleton;
  * In short, this pattern cleverly uses the JVM's own thread-safe class loading mechanism to achieve lazy and safe initialization without explicit `synchronized` blocks.
  * <p>
  * This approach is generally preferred over the double-checked locking approach because it's cleaner, easier to read, and guaranteed to be safe without the complexities of `volatile` and `synchronized` keywords.
+ *
+ * <h2>The Managed Resource</h2>
+ * The single instance owns a bounded {@link ConnectionPool}. Callers {@link #lease()} a {@link DBConnection} and give it back with
+ * {@link #release(DBConnection)} (or by closing it). Having one instance does not mean having one point of contention: the pool
+ * keeps its idle connections in per-thread stripes and hands them over with compare-and-set, so concurrent callers rarely touch
+ * the same memory. The pool size defaults to four connections per available processor and can be set with the
+ * {@code db.pool.size} system property.
  */
 public class DBInstance {
+    private static final long DEFAULT_LEASE_TIMEOUT_MILLIS = 30_000;
+
+    private final ConnectionPool pool;
 
     /**
      * The private constructor prevents direct instantiation of the class.
      */
     private DBInstance(){
+        pool = new ConnectionPool(Integer.getInteger("db.pool.size", Runtime.getRuntime().availableProcessors() * 4));
     }
 
     /**
@@ -47,4 +63,39 @@ public class DBInstance {
     public static DBInstance getInstance(){
         return DBInstanceHelper.INSTANCE;
     }
+
+    /**
+     * Leases a connection, waiting up to 30 seconds for one to become available.
+     * @return A connection that must be released (or closed) after use.
+     * @throws TimeoutException if the pool stays exhausted for the whole wait.
+     */
+    public DBConnection lease() throws TimeoutException {
+        return pool.lease(DEFAULT_LEASE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Leases a connection, waiting at most the given time for one to become available.
+     * @throws TimeoutException if the pool stays exhausted for the whole wait.
+     */
+    public DBConnection lease(long timeout, TimeUnit unit) throws TimeoutException {
+        return pool.lease(timeout, unit);
+    }
+
+    /**
+     * Returns a leased connection to the pool.
+     */
+    public void release(DBConnection connection) {
+        pool.release(connection);
+    }
+
+    /**
+     * Lists connections that have been leased for longer than the given threshold and were probably never released.
+     */
+    public List<DBConnection> findLeaks(Duration threshold) {
+        return pool.findLeaks(threshold);
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
 }
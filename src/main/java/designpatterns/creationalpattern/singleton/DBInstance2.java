@@ -0,0 +1,28 @@
+package designpatterns.creationalpattern.singleton;
+
+/**
+ * This class demonstrates the Singleton pattern using a single-element {@code enum}.
+ *
+ * <h2>Implementation Details</h2>
+ * <ul>
+ *     <li><b>Enum Constant:</b> `INSTANCE` is the only value of the enum. The JVM creates it exactly once, when the enum class is initialized.</li>
+ *     <li><b>Thread-Safety:</b> Like the holder idiom in `DBInstance`, enum initialization relies on the JVM's class initialization lock, so no explicit `synchronized` or `volatile` is needed.</li>
+ *     <li><b>Serialization and Reflection Safe:</b> The JVM guarantees that enum constants are never instantiated through reflection or deserialization, so a second instance can never appear.</li>
+ * </ul>
+ *
+ * <h2>Note on Laziness</h2>
+ * The instance is created when the enum class is first initialized, which in practice is the first access to `INSTANCE`.
+ * It is therefore as lazy as the holder idiom unless other static members of the enum are touched earlier.
+ */
+public enum DBInstance2 {
+    INSTANCE;
+
+    /**
+     * Returns the single instance of the enum.
+     * Provided for symmetry with `DBInstance.getInstance()` and `DBInstance1.getInstance()`.
+     * @return The singleton `DBInstance2` object.
+     */
+    public static DBInstance2 getInstance() {
+        return INSTANCE;
+    }
+}
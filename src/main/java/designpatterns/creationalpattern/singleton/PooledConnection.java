@@ -0,0 +1,66 @@
+package designpatterns.creationalpattern.singleton;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The physical connection behind the {@link DBConnection}s that a {@link ConnectionPool} hands out. It is created once
+ * and reused across many leases; each lease gets its own {@code DBConnection}, tagged with the lease's generation.
+ */
+final class PooledConnection {
+    private final int id;
+    private final ConnectionPool pool;
+    // Even while the connection sits in the pool, odd while it is leased. Leasing and releasing each add one, so the
+    // value while leased identifies the lease, and a handle from an earlier lease no longer matches.
+    private final AtomicLong generation = new AtomicLong();
+    // The handle of the current lease, or null while the connection is idle. Set after the lease is won.
+    private volatile DBConnection currentLease;
+
+    PooledConnection(int id, ConnectionPool pool) {
+        this.id = id;
+        this.pool = pool;
+    }
+
+    int id() {
+        return id;
+    }
+
+    ConnectionPool pool() {
+        return pool;
+    }
+
+    /**
+     * @return A handle for a new lease, or {@code null} if the connection is leased right now.
+     */
+    DBConnection lease() {
+        long idle = generation.get();
+        if ((idle & 1) != 0 || !generation.compareAndSet(idle, idle + 1)) {
+            return null;
+        }
+        // Only the winner of the CAS creates the handle, so a losing racer cannot overwrite the real lessee.
+        DBConnection lease = new DBConnection(this, idle + 1, System.nanoTime(), Thread.currentThread().getName());
+        currentLease = lease;
+        return lease;
+    }
+
+    /**
+     * Ends the given lease.
+     *
+     * @return {@code false} if that lease already ended, e.g. because the handle was closed twice.
+     */
+    boolean release(long lease) {
+        if (!generation.compareAndSet(lease, lease + 1)) {
+            return false;
+        }
+        // Nobody can lease the connection before the pool takes it back, so this cannot clear a newer lease.
+        currentLease = null;
+        return true;
+    }
+
+    boolean isLeasedAs(long lease) {
+        return generation.get() == lease;
+    }
+
+    DBConnection currentLease() {
+        return currentLease;
+    }
+}
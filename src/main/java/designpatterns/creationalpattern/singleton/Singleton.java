@@ -1,5 +1,7 @@
 package designpatterns.creationalpattern.singleton;
 
+import java.util.concurrent.TimeoutException;
+
 /**
  * The Singleton design pattern is a creational pattern that ensures a class has only one instance and provides a global point of access to it.
  * This is useful when exactly one object is needed to coordinate actions across the system.
@@ -20,12 +22,18 @@ package designpatterns.creationalpattern.singleton;
  * In this example, we demonstrate a multi-threaded environment where multiple threads try to get an instance of `DBInstance`.
  * The `DBInstance` class is implemented as a Singleton, so both threads will receive the exact same instance, which is verified by printing their hash codes.
  * This ensures that both threads are working with the same database connection instance.
+ * Each thread then leases a {@link DBConnection} from the pool owned by that instance and returns it when done.
  */
 public class Singleton {
     public static void main(String[] args) throws InterruptedException {
         Runnable task = () ->{
             DBInstance db = DBInstance.getInstance();
             System.out.println(Thread.currentThread().getName() +"->"+ db.hashCode());
+            try (DBConnection connection = db.lease()) {
+                connection.execute("SELECT 1");
+            } catch (TimeoutException e) {
+                System.out.println(Thread.currentThread().getName() + " could not get a connection: " + e.getMessage());
+            }
         };
 
         Thread thread1 = new Thread(task, "Thread-1");
@@ -0,0 +1,129 @@
+package designpatterns.creationalpattern.snapshot;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The header at the start of every binary snapshot of a prototype registry (the menu, a book shop).
+ *
+ * <h2>Layout</h2>
+ * All numbers are big-endian, as written by {@link DataOutput}.
+ * <pre>
+ * int   magic          "PSNP"
+ * short formatVersion  version of the snapshot layout, currently 1
+ * short kind           what the snapshot contains, see the KIND_ constants
+ * long  dataVersion    version of the registry's content when it was written (for example the menu version)
+ * int   count          number of prototypes in the snapshot
+ * </pre>
+ * The kind-specific body follows directly after the {@value #SIZE} header bytes. Readers memory-map the whole file and
+ * decode the body lazily, so opening a snapshot costs the same no matter how many prototypes it holds.
+ *
+ * @param kind        What the snapshot contains.
+ * @param dataVersion Version of the content when it was written.
+ * @param count       Number of prototypes in the snapshot.
+ */
+public record SnapshotHeader(short kind, long dataVersion, int count) {
+    public static final int MAGIC = 0x50534E50;
+    public static final short FORMAT_VERSION = 1;
+    public static final int SIZE = 4 + 2 + 2 + 8 + 4;
+
+    public static final short KIND_MENU = 1;
+    public static final short KIND_BOOK_SHOP = 2;
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+        out.writeShort(kind);
+        out.writeLong(dataVersion);
+        out.writeInt(count);
+    }
+
+    /**
+     * Reads and checks the header at the start of the buffer.
+     *
+     * @param expectedKind The kind the caller can decode.
+     * @throws IOException if the buffer does not start with a supported snapshot header of that kind.
+     */
+    public static SnapshotHeader read(ByteBuffer buffer, short expectedKind) throws IOException {
+        if (buffer.limit() < SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a snapshot file");
+        }
+        short formatVersion = buffer.getShort(4);
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format version " + formatVersion);
+        }
+        short kind = buffer.getShort(6);
+        if (kind != expectedKind) {
+            throw new IOException("Snapshot contains kind " + kind + ", expected " + expectedKind);
+        }
+        return new SnapshotHeader(kind, buffer.getLong(8), buffer.getInt(16));
+    }
+
+    /**
+     * Memory-maps a snapshot file read-only.
+     */
+    public static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Writes a snapshot to a temporary file next to the target and then moves it into place, so that a crash while
+     * writing never leaves a half-written snapshot behind.
+     * <p>
+     * The temporary file is forced to disk before the move, and the directory after it. Otherwise a power failure could
+     * keep the rename but lose the data it points to, or lose the rename itself.
+     */
+    public static void writeAtomically(Path file, SnapshotBody body) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                // Not closed here: closing the stream would close the channel before it is forced.
+                OutputStream out = Channels.newOutputStream(channel);
+                body.writeTo(out);
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory(directory);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Forces a directory's entries (created, renamed and deleted files) to disk. Platforms that cannot open a directory
+     * as a file, such as Windows, do not support this, and the step is skipped there.
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Writes the complete snapshot, header included.
+     */
+    @FunctionalInterface
+    public interface SnapshotBody {
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
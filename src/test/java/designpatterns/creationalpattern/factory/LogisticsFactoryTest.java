@@ -0,0 +1,50 @@
+package designpatterns.creationalpattern.factory;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for looking up implementations in the {@link LogisticsFactory} registry.
+ */
+class LogisticsFactoryTest {
+
+    @Test
+    void lookupIgnoresCase() {
+        Logistics road = LogisticsFactory.createLogistics("road");
+        assertTrue(road instanceof RoadLogistics);
+        assertSame(road, LogisticsFactory.createLogistics("ROAD"));
+        assertSame(road, LogisticsFactory.createLogistics("Road"));
+    }
+
+    @Test
+    void registeredTypesAreListedInLowerCase() {
+        LogisticsFactory.register(new Logistics() {
+            @Override
+            public void deliver() {
+            }
+
+            @Override
+            public void receive() {
+            }
+
+            @Override
+            public void track() {
+            }
+
+            @Override
+            public String type() {
+                return "Drone";
+            }
+        });
+        assertTrue(LogisticsFactory.types().contains("drone"));
+        assertSame(LogisticsFactory.createLogistics("drone"), LogisticsFactory.createLogistics("DRONE"));
+    }
+
+    @Test
+    void unknownTypeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LogisticsFactory.createLogistics("teleport"));
+    }
+}
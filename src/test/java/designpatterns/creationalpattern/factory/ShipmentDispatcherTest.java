@@ -0,0 +1,116 @@
+package designpatterns.creationalpattern.factory;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link ShipmentDispatcher}, in particular that {@link ShipmentDispatcher#close()} racing with
+ * {@link ShipmentDispatcher#dispatch(Shipment)} never leaves a future pending.
+ */
+class ShipmentDispatcherTest {
+    private static final CountingLogistics LOGISTICS = new CountingLogistics();
+
+    static {
+        LogisticsFactory.register(LOGISTICS);
+    }
+
+    @Test
+    void deliversEveryShipmentInBatches() throws Exception {
+        int before = LOGISTICS.delivered.get();
+        List<CompletableFuture<Void>> futures;
+        try (ShipmentDispatcher dispatcher = new ShipmentDispatcher(Duration.ofMillis(20), 16, 2, 1024)) {
+            futures = IntStream.range(0, 100)
+                    .mapToObj(i -> dispatcher.dispatch(new Shipment("s" + i, "counting")))
+                    .toList();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(100, LOGISTICS.delivered.get() - before);
+    }
+
+    @Test
+    void unknownTypeFailsTheFuture() {
+        try (ShipmentDispatcher dispatcher = new ShipmentDispatcher(Duration.ofMillis(1), 16, 1, 16)) {
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> dispatcher.dispatch(new Shipment("s", "teleport")).get(10, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    void dispatchAfterCloseIsRejected() {
+        ShipmentDispatcher dispatcher = new ShipmentDispatcher(Duration.ofMillis(1), 16, 1, 16);
+        dispatcher.close();
+        CompletableFuture<Void> late = dispatcher.dispatch(new Shipment("late", "counting"));
+        assertTrue(late.isCompletedExceptionally());
+    }
+
+    @Test
+    void closeRacingWithDispatchLeavesNoFuturePending() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            ShipmentDispatcher dispatcher = new ShipmentDispatcher(Duration.ofMillis(1), 8, 2, 4096);
+            Queue<CompletableFuture<Void>> futures = new ConcurrentLinkedQueue<>();
+            CountDownLatch started = new CountDownLatch(4);
+            Thread[] producers = new Thread[4];
+            for (int p = 0; p < producers.length; p++) {
+                producers[p] = Thread.ofPlatform().start(() -> {
+                    started.countDown();
+                    for (int i = 0; i < 500; i++) {
+                        futures.add(dispatcher.dispatch(new Shipment("s" + i, "counting")));
+                    }
+                });
+            }
+            started.await();
+            dispatcher.close();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            for (CompletableFuture<Void> future : futures) {
+                try {
+                    future.get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof RejectedExecutionException, "unexpected failure " + e.getCause());
+                } catch (TimeoutException e) {
+                    throw new AssertionError("A shipment dispatched while closing was left pending in round " + round);
+                }
+            }
+        }
+    }
+
+    private static final class CountingLogistics implements Logistics {
+        private final AtomicInteger delivered = new AtomicInteger();
+
+        @Override
+        public void deliver() {
+            delivered.incrementAndGet();
+        }
+
+        @Override
+        public void deliver(List<Shipment> shipments) {
+            delivered.addAndGet(shipments.size());
+        }
+
+        @Override
+        public void receive() {
+        }
+
+        @Override
+        public void track() {
+        }
+    }
+}
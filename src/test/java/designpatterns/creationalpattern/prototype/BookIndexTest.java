@@ -0,0 +1,145 @@
+package designpatterns.creationalpattern.prototype;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks the {@link BookIndex} behind {@link BookShop#findById(int)} and {@link BookShop#findByNamePrefix(String, int)}
+ * against plain scans of the book list while books are added and removed.
+ */
+class BookIndexTest {
+    private static final int IDS = 20_000;
+
+    @Test
+    void lookupsMatchAScanWhileBooksComeAndGo() {
+        Random random = new Random(17);
+        for (boolean compact : new boolean[]{false, true}) {
+            BookShop shop = new BookShop();
+            if (compact) {
+                shop.compact();
+            }
+            for (int step = 0; step < 10_000; step++) {
+                List<Book> books = shop.getBooks();
+                int id = random.nextBoolean() && !books.isEmpty()
+                        ? books.get(random.nextInt(books.size())).getId()
+                        : random.nextInt(IDS);
+                if (random.nextInt(3) == 0) {
+                    Book removed = shop.removeBook(id);
+                    if (removed != null) {
+                        assertEquals(id, removed.getId());
+                    }
+                } else {
+                    shop.addBook(book(id, "b" + Integer.toString(id, 7)));
+                }
+                if (step % 97 == 0) {
+                    assertLookupsMatchScan(shop, random);
+                }
+            }
+            assertLookupsMatchScan(shop, random);
+        }
+    }
+
+    @Test
+    void duplicateIdsFallBackToTheNextBook() {
+        BookShop shop = new BookShop();
+        shop.addBook(book(1, "first"));
+        shop.addBook(book(2, "other"));
+        shop.addBook(book(1, "second"));
+        shop.addBook(book(3, "third"));
+        assertEquals("first", shop.findById(1).getName());
+        assertEquals("first", shop.removeBook(1).getName());
+        assertEquals("second", shop.findById(1).getName());
+        assertEquals("third", shop.findById(3).getName());
+        shop.removeBook(2);
+        assertEquals("second", shop.findById(1).getName());
+        assertEquals("second", shop.removeBook(1).getName());
+        assertNull(shop.findById(1));
+        assertEquals(List.of("third"), names(shop.findByNamePrefix("", 10)));
+    }
+
+    @Test
+    void bulkDeletionKeepsTheIndexConsistent() {
+        BookShop shop = new BookShop();
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            shop.addBook(book(i, "n" + i));
+        }
+        shop.findById(0);
+        // Deleting from the back keeps the list operations cheap, so this measures the index. Past half of the books the
+        // index renumbers itself.
+        for (int i = count - 1; i >= count / 4; i--) {
+            assertEquals(i, shop.removeBook(i).getId());
+            if (i % 10_000 == 0) {
+                assertEquals(i - 1, shop.getBooks().indexOf(shop.findById(i - 1)));
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            shop.removeBook(i);
+        }
+        assertEquals(count / 4 - 100, shop.getBooks().size());
+        assertEquals(0, shop.getBooks().indexOf(shop.findById(100)));
+        assertEquals(count / 4 - 101, shop.getBooks().indexOf(shop.findById(count / 4 - 1)));
+        assertEquals(List.of("n24999"), names(shop.findByNamePrefix("n24999", 10)));
+        assertNull(shop.findById(99));
+    }
+
+    @Test
+    void aClonedShopKeepsItsOwnIndex() {
+        BookShop shop = new BookShop();
+        for (int i = 0; i < 100; i++) {
+            shop.addBook(book(i, "n" + i));
+        }
+        shop.findById(0);
+        BookShop clone = shop.clone();
+        for (int i = 0; i < 50; i++) {
+            shop.removeBook(i);
+        }
+        assertEquals("n10", clone.findById(10).getName());
+        assertNull(shop.findById(10));
+        assertEquals("n60", shop.findById(60).getName());
+        assertEquals(10, clone.getBooks().indexOf(clone.findById(10)));
+    }
+
+    private static void assertLookupsMatchScan(BookShop shop, Random random) {
+        List<Book> books = shop.getBooks();
+        for (int i = 0; i < 50; i++) {
+            int id = random.nextInt(IDS);
+            Book expected = null;
+            for (Book book : books) {
+                if (book.getId() == id) {
+                    expected = book;
+                    break;
+                }
+            }
+            Book found = shop.findById(id);
+            assertEquals(expected == null ? null : expected.getId() + expected.getName(),
+                    found == null ? null : found.getId() + found.getName(), "findById(" + id + ")");
+        }
+        String prefix = "b" + Integer.toString(random.nextInt(49), 7);
+        List<String> expected = new ArrayList<>();
+        for (Book book : books) {
+            if (book.getName().startsWith(prefix)) {
+                expected.add(book.getName());
+            }
+        }
+        List<String> found = names(shop.findByNamePrefix(prefix, Integer.MAX_VALUE));
+        assertEquals(expected.stream().sorted().toList(), found.stream().sorted().toList(), "findByNamePrefix(" + prefix + ")");
+    }
+
+    private static Book book(int id, String name) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(name);
+        return book;
+    }
+
+    private static List<String> names(List<Book> books) {
+        return books.stream().map(Book::getName).toList();
+    }
+}
@@ -0,0 +1,71 @@
+package designpatterns.creationalpattern.prototype;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for copying a {@link BookShop}: by serialization, {@link BookShop#clone()} and {@link BookShop#deepClone()}.
+ */
+class BookShopTest {
+
+    @Test
+    void serializationKeepsNameAndBooks() throws Exception {
+        BookShop shop = shop();
+        BookShop copy = roundTrip(shop);
+        assertEquals("Corner Books", copy.getShopName());
+        assertEquals(describe(shop.getBooks()), describe(copy.getBooks()));
+        assertTrue(copy.getBooks() instanceof PersistentVector);
+        assertEquals("Book7", copy.findById(7).getName());
+    }
+
+    @Test
+    void serializationKeepsACompactedShopCompact() throws Exception {
+        BookShop shop = shop();
+        shop.compact();
+        BookShop copy = roundTrip(shop);
+        assertEquals(describe(shop.getBooks()), describe(copy.getBooks()));
+        assertTrue(copy.getBooks() instanceof CompactBookList);
+        assertEquals(1, copy.findByNamePrefix("Book3", 10).size());
+    }
+
+    @Test
+    void cloneSharesBooksAndDeepCloneCopiesThem() {
+        BookShop shop = shop();
+        BookShop clone = shop.clone();
+        BookShop deep = shop.deepClone();
+        shop.getBooks().get(0).setName("Changed");
+        assertEquals("Changed", clone.getBooks().get(0).getName());
+        assertEquals("Book0", deep.getBooks().get(0).getName());
+        assertEquals("Corner Books", deep.getShopName());
+    }
+
+    private static BookShop shop() {
+        BookShop shop = new BookShop();
+        shop.setShopName("Corner Books");
+        shop.loadData();
+        return shop;
+    }
+
+    private static BookShop roundTrip(BookShop shop) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(shop);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (BookShop) in.readObject();
+        }
+    }
+
+    private static List<String> describe(List<Book> books) {
+        return books.stream().map(book -> book.getId() + ":" + book.getName()).toList();
+    }
+}
@@ -0,0 +1,53 @@
+package designpatterns.creationalpattern.prototype;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for parsing catalog files with the {@link CatalogLoader}.
+ */
+class CatalogLoaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadsBooksInFileOrder() throws IOException {
+        Path file = write("id,name\n1,Dune\r\n\n2147483647,Crème, brûlée\n");
+        List<Book> books = new ArrayList<>();
+        CatalogLoader.LoadStats stats = new CatalogLoader(2).load(file, books);
+        assertEquals(2, stats.rows());
+        assertEquals(1, books.get(0).getId());
+        assertEquals("Dune", books.get(0).getName());
+        assertEquals(Integer.MAX_VALUE, books.get(1).getId());
+        assertEquals("Crème, brûlée", books.get(1).getName());
+    }
+
+    @Test
+    void anIdThatOverflowsIsAMalformedLine() throws IOException {
+        Path file = write("1,Dune\n2147483648,Too big\n");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new CatalogLoader(1).load(file, new ArrayList<>()));
+        assertTrue(e.getMessage().endsWith("at byte 7"), e.getMessage());
+    }
+
+    @Test
+    void aLineWithoutANameIsRejected() throws IOException {
+        Path file = write("1,Dune\n42\n");
+        assertThrows(IllegalArgumentException.class, () -> new CatalogLoader(1).load(file, new ArrayList<>()));
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(directory.resolve("catalog.csv"), content, StandardCharsets.UTF_8);
+    }
+}
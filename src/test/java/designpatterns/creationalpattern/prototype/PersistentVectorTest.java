@@ -0,0 +1,172 @@
+package designpatterns.creationalpattern.prototype;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link PersistentVector}, checked operation by operation against an {@code ArrayList}.
+ */
+class PersistentVectorTest {
+    // Sizes around the tail (32 elements), a full first tree level (32 + 32 * 32) and a second tree level.
+    private static final int[] BOUNDARIES = {0, 1, 31, 32, 33, 63, 64, 65, 1023, 1024, 1025, 1056, 1057, 1088, 32_800, 32_801, 33_824, 33_825};
+
+    @Test
+    void growsAndShrinksAcrossEveryBoundary() {
+        PersistentVector<Integer> vector = new PersistentVector<>();
+        List<Integer> expected = new ArrayList<>();
+        int max = BOUNDARIES[BOUNDARIES.length - 1] + 1;
+        for (int i = 0; i < max; i++) {
+            vector.add(i);
+            expected.add(i);
+            if (isBoundary(vector.size())) {
+                assertSameElements(expected, vector);
+            }
+        }
+        for (int i = max - 1; i >= 0; i--) {
+            assertEquals(expected.remove(i), vector.remove(i));
+            if (isBoundary(vector.size())) {
+                assertSameElements(expected, vector);
+            }
+        }
+        assertEquals(0, vector.size());
+        vector.add(7);
+        assertEquals(List.of(7), vector);
+    }
+
+    @Test
+    void randomOperationsMatchAnArrayList() {
+        Random random = new Random(42);
+        for (int size : BOUNDARIES) {
+            if (size > 2_000) {
+                continue;
+            }
+            PersistentVector<Integer> vector = new PersistentVector<>(IntStream.range(0, size).boxed().toList());
+            List<Integer> expected = new ArrayList<>(vector);
+            for (int step = 0; step < 300; step++) {
+                int value = random.nextInt();
+                switch (random.nextInt(5)) {
+                    case 0 -> {
+                        vector.add(value);
+                        expected.add(value);
+                    }
+                    case 1 -> {
+                        int index = random.nextInt(expected.size() + 1);
+                        vector.add(index, value);
+                        expected.add(index, value);
+                    }
+                    case 2 -> {
+                        if (!expected.isEmpty()) {
+                            int index = random.nextInt(expected.size());
+                            assertEquals(expected.remove(index), vector.remove(index));
+                        }
+                    }
+                    case 3 -> {
+                        if (!expected.isEmpty()) {
+                            int index = random.nextInt(expected.size());
+                            assertEquals(expected.set(index, value), vector.set(index, value));
+                        }
+                    }
+                    default -> {
+                        if (!expected.isEmpty()) {
+                            assertEquals(expected.remove(expected.size() - 1), vector.remove(vector.size() - 1));
+                        }
+                    }
+                }
+            }
+            assertSameElements(expected, vector);
+        }
+    }
+
+    @Test
+    void addAndRemoveInTheMiddleShiftTheRest() {
+        PersistentVector<Integer> vector = new PersistentVector<>(IntStream.range(0, 1025).boxed().toList());
+        List<Integer> expected = new ArrayList<>(vector);
+        for (int index : new int[]{512, 0, 31, 32, 1023, 1024, 1025, 1026}) {
+            vector.add(index, -index);
+            expected.add(index, -index);
+        }
+        assertSameElements(expected, vector);
+        for (int index : new int[]{1024, 512, 32, 31, 0, 1000}) {
+            assertEquals(expected.remove(index), vector.remove(index));
+        }
+        assertSameElements(expected, vector);
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.add(vector.size() + 1, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.remove(vector.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.get(-1));
+    }
+
+    @Test
+    void snapshotsAreIsolatedFromEachOther() {
+        for (int size : BOUNDARIES) {
+            if (size > 2_000) {
+                continue;
+            }
+            PersistentVector<Integer> original = new PersistentVector<>(IntStream.range(0, size).boxed().toList());
+            List<Integer> before = new ArrayList<>(original);
+            PersistentVector<Integer> copy = original.snapshot();
+
+            copy.add(-1);
+            if (size > 0) {
+                copy.set(0, -2);
+                copy.set(size - 1, -3);
+                copy.remove(size / 2);
+            }
+            assertSameElements(before, original);
+
+            List<Integer> copied = new ArrayList<>(copy);
+            original.add(-4);
+            if (size > 1) {
+                original.set(size / 2, -5);
+                original.remove(0);
+                original.remove(original.size() - 1);
+                original.remove(original.size() - 1);
+            }
+            assertSameElements(copied, copy);
+        }
+    }
+
+    @Test
+    void survivesSerialization() throws IOException, ClassNotFoundException {
+        PersistentVector<Integer> vector = new PersistentVector<>(IntStream.range(0, 1057).boxed().toList());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(vector);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            @SuppressWarnings("unchecked")
+            PersistentVector<Integer> read = (PersistentVector<Integer>) in.readObject();
+            assertSameElements(vector, read);
+            read.add(1057);
+            assertEquals(1058, read.size());
+        }
+    }
+
+    private static boolean isBoundary(int size) {
+        for (int boundary : BOUNDARIES) {
+            if (boundary == size) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void assertSameElements(List<Integer> expected, PersistentVector<Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i), "element " + i);
+        }
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,127 @@
+package designpatterns.creationalpattern.prototype;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link PrototypeRegistry}: copying, loading, admission and its bookkeeping under concurrent updates.
+ */
+class PrototypeRegistryTest {
+
+    @Test
+    void getReturnsCopiesAndLoadsOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        PrototypeRegistry<Integer, Book> registry = new PrototypeRegistry.Builder<Integer, Book>(Book::clone)
+                .withLoader(id -> {
+                    loads.incrementAndGet();
+                    return id < 0 ? null : book(id);
+                })
+                .build();
+        Book first = registry.get(7);
+        Book second = registry.get(7);
+        assertEquals("Book7", first.getName());
+        assertNotSame(first, second);
+        assertNotSame(registry.getPrototype(7), first);
+        assertEquals(1, loads.get());
+        assertNull(registry.get(-1));
+        assertFalse(registry.contains(-1));
+        assertEquals(new PrototypeRegistry.Stats(1, 2, 2, 0), registry.stats());
+    }
+
+    @Test
+    void aPrototypeHeavierThanTheMaximumIsNotKept() {
+        PrototypeRegistry<String, Book> registry = new PrototypeRegistry.Builder<String, Book>(Book::clone)
+                .withMaximumWeight(10)
+                .withWeigher(Book::getId)
+                .build();
+        registry.put("light", book(4));
+        registry.put("heavy", book(11));
+        assertTrue(registry.contains("light"));
+        assertFalse(registry.contains("heavy"));
+        assertEquals(4, registry.weight());
+    }
+
+    @Test
+    void frequentlyUsedPrototypesSurviveAScan() {
+        PrototypeRegistry<Integer, Book> registry = new PrototypeRegistry.Builder<Integer, Book>(Book::clone)
+                .withMaximumSize(10)
+                .withLoader(PrototypeRegistryTest::book)
+                .build();
+        for (int round = 0; round < 20; round++) {
+            for (int id = 0; id < 10; id++) {
+                registry.get(id);
+            }
+        }
+        // A crawler requests each of many keys once, while the hot prototypes stay in use.
+        for (int id = 1000; id < 3000; id++) {
+            registry.get(id);
+            registry.get(id % 10);
+        }
+        for (int id = 0; id < 10; id++) {
+            assertTrue(registry.contains(id), "hot prototype " + id + " was evicted");
+        }
+        assertEquals(10, registry.size());
+        assertEquals(10, registry.weight());
+    }
+
+    @Test
+    void racingPutsRemovesAndLoadsKeepTheWeightExact() throws Exception {
+        PrototypeRegistry<Integer, Book> registry = new PrototypeRegistry.Builder<Integer, Book>(Book::clone)
+                .withMaximumSize(1000)
+                .withLoader(PrototypeRegistryTest::book)
+                .build();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (int i = 0; i < 50_000; i++) {
+                        int key = random.nextInt(50);
+                        switch (random.nextInt(3)) {
+                            case 0 -> registry.put(key, book(key));
+                            case 1 -> registry.remove(key);
+                            default -> registry.get(key);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertNull(failure.get());
+        // Every prototype weighs 1, so a node linked without being mapped (or the other way round) shows up here.
+        assertEquals(registry.size(), registry.weight());
+        registry.clear();
+        assertEquals(0, registry.size());
+        assertEquals(0, registry.weight());
+    }
+
+    private static Book book(int id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName("Book" + id);
+        return book;
+    }
+}
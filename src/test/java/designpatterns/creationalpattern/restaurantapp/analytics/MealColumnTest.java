@@ -0,0 +1,80 @@
+package designpatterns.creationalpattern.restaurantapp.analytics;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for encoding meals with the {@link MealCodec} and storing them in a {@link MealColumn}.
+ */
+class MealColumnTest {
+
+    @Test
+    void mealsSurviveTheRoundTrip() {
+        MealCodec codec = new MealCodec();
+        Meal full = new Meal.MealBuilder("Pasta").withSideDish("Salad").withDrink("Wine").withDessert("Tiramisu").build();
+        Meal empty = new Meal.MealBuilder(null).withSideDish(null).withDrink(null).build();
+        Meal onlyDessert = empty.withDessert("Flan");
+        for (Meal meal : List.of(full, empty, onlyDessert)) {
+            assertEquals(meal, codec.decode(codec.encode(meal)));
+        }
+        assertEquals(0, codec.encode(empty));
+        assertEquals(codec.encode(full), codec.encode(full.withDrink("Wine")));
+        assertNotEquals(codec.encode(full), codec.encode(full.withDessert(null)));
+        assertEquals("Flan", codec.getDictionary().valueOf(MealPart.DESSERT, MealCodec.partId(codec.encode(onlyDessert), MealPart.DESSERT)));
+        assertEquals(MealDictionary.NULL_ID, MealCodec.partId(codec.encode(onlyDessert), MealPart.MAIN_COURSE));
+    }
+
+    @Test
+    void behavesLikeAList() {
+        MealColumn column = new MealColumn(new MealCodec(), 0);
+        List<Meal> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Meal meal = new Meal.MealBuilder("Main" + i % 7).withDessert(i % 3 == 0 ? null : "Dessert" + i % 5).build();
+            column.add(meal);
+            expected.add(meal);
+        }
+        Meal taco = new Meal.MealBuilder("Taco").build();
+        column.add(0, taco);
+        expected.add(0, taco);
+        column.add(column.size(), taco);
+        expected.add(taco);
+        assertEquals(expected.remove(50), column.remove(50));
+        assertEquals(expected.set(10, taco), column.set(10, taco));
+        assertEquals(expected, column);
+        column.trimToSize();
+        assertEquals(expected, column);
+        assertThrows(IndexOutOfBoundsException.class, () -> column.get(column.size()));
+        assertThrows(IndexOutOfBoundsException.class, () -> column.add(column.size() + 1, taco));
+        column.clear();
+        assertEquals(0, column.size());
+    }
+
+    @Test
+    void countsMatchesWithoutDecoding() {
+        MealColumn column = new MealColumn(new MealCodec());
+        for (int i = 0; i < 1_000; i++) {
+            column.add(new Meal.MealBuilder(i % 4 == 0 ? "Taco" : "Pasta").withDessert(i % 10 == 0 ? "Flan" : null).build());
+        }
+        assertEquals(250, column.count(MealPart.MAIN_COURSE, "Taco"));
+        assertEquals(750, column.count(MealPart.MAIN_COURSE, "Pasta"));
+        assertEquals(0, column.count(MealPart.MAIN_COURSE, "Burger"));
+        assertEquals(900, column.count(MealPart.DESSERT, null));
+        assertEquals(1_000, column.count(MealPart.DRINK, "Water"));
+
+        Map<String, Long> desserts = column.countsBy(MealPart.DESSERT);
+        assertEquals(Arrays.asList(null, "Flan"), new ArrayList<>(desserts.keySet()));
+        assertEquals(900L, desserts.get(null));
+        assertEquals(100L, desserts.get("Flan"));
+        assertNull(column.countsBy(MealPart.SIDE_DISH).get("Salad"));
+    }
+}
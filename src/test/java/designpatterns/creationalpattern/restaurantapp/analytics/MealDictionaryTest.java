@@ -0,0 +1,107 @@
+package designpatterns.creationalpattern.restaurantapp.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for assigning and looking up ids in the {@link MealDictionary}.
+ */
+class MealDictionaryTest {
+
+    @Test
+    void idsAreAssignedPerPartFromOne() {
+        MealDictionary dictionary = new MealDictionary();
+        assertEquals(1, dictionary.idOf(MealPart.DRINK, "Coke"));
+        assertEquals(2, dictionary.idOf(MealPart.DRINK, "Water"));
+        assertEquals(1, dictionary.idOf(MealPart.SIDE_DISH, "Coke"));
+        assertEquals(1, dictionary.idOf(MealPart.DRINK, new String("Coke")));
+        assertEquals(2, dictionary.size(MealPart.DRINK));
+        assertEquals("Water", dictionary.valueOf(MealPart.DRINK, 2));
+        assertEquals(-1, dictionary.find(MealPart.DRINK, "Wine"));
+        assertEquals(2, dictionary.size(MealPart.DRINK));
+    }
+
+    @Test
+    void nullIsTheNullIdAndIsNeverCounted() {
+        MealDictionary dictionary = new MealDictionary();
+        assertEquals(MealDictionary.NULL_ID, dictionary.idOf(MealPart.DESSERT, null));
+        assertEquals(MealDictionary.NULL_ID, dictionary.find(MealPart.DESSERT, null));
+        assertNull(dictionary.valueOf(MealPart.DESSERT, MealDictionary.NULL_ID));
+        assertEquals(0, dictionary.size(MealPart.DESSERT));
+    }
+
+    @Test
+    void unknownIdsAreRejected() {
+        MealDictionary dictionary = new MealDictionary();
+        dictionary.idOf(MealPart.MAIN_COURSE, "Pasta");
+        assertThrows(IllegalArgumentException.class, () -> dictionary.valueOf(MealPart.MAIN_COURSE, 2));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.valueOf(MealPart.MAIN_COURSE, -1));
+        assertThrows(IllegalArgumentException.class, () -> dictionary.valueOf(MealPart.DRINK, 1));
+    }
+
+    @Test
+    void aPartRunsOutOfIdsAtMaxId() {
+        MealDictionary dictionary = new MealDictionary();
+        for (int i = 1; i <= MealDictionary.MAX_ID; i++) {
+            assertEquals(i, dictionary.idOf(MealPart.DESSERT, "Dessert" + i));
+        }
+        assertThrows(IllegalStateException.class, () -> dictionary.idOf(MealPart.DESSERT, "One too many"));
+        assertEquals(MealDictionary.MAX_ID, dictionary.size(MealPart.DESSERT));
+        assertEquals(-1, dictionary.find(MealPart.DESSERT, "One too many"));
+        assertEquals(MealDictionary.MAX_ID, dictionary.idOf(MealPart.DESSERT, "Dessert" + MealDictionary.MAX_ID));
+        assertEquals("Dessert" + MealDictionary.MAX_ID, dictionary.valueOf(MealPart.DESSERT, MealDictionary.MAX_ID));
+        assertEquals(MealDictionary.NULL_ID, dictionary.idOf(MealPart.DESSERT, null));
+        assertEquals(1, dictionary.idOf(MealPart.DRINK, "Coke"));
+    }
+
+    @Test
+    void anIdSeenByAReaderHasItsValueAndCount() throws InterruptedException {
+        MealDictionary dictionary = new MealDictionary();
+        int values = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    start.await();
+                    while (!done.get()) {
+                        for (int i = values - 1; i >= 0; i -= 97) {
+                            int id = dictionary.find(MealPart.MAIN_COURSE, "Meal" + i);
+                            if (id > 0) {
+                                // The id was published after the value and the count, so both must be visible.
+                                assertEquals("Meal" + i, dictionary.valueOf(MealPart.MAIN_COURSE, id));
+                                assertTrue(dictionary.size(MealPart.MAIN_COURSE) >= id);
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        start.countDown();
+        for (int i = 0; i < values; i++) {
+            dictionary.idOf(MealPart.MAIN_COURSE, "Meal" + i);
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+        assertEquals(values, dictionary.size(MealPart.MAIN_COURSE));
+    }
+}
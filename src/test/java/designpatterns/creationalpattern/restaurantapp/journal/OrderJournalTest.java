@@ -0,0 +1,228 @@
+package designpatterns.creationalpattern.restaurantapp.journal;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovery tests for the {@link OrderJournal}: each one damages the segment files the way a crash or a bad disk would,
+ * reopens the journal and checks what survived and where appending continues.
+ */
+class OrderJournalTest {
+    private static final int SMALL_SEGMENT = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void ordersSurviveReopen() throws IOException {
+        List<Meal> meals = meals(100);
+        try (OrderJournal journal = open()) {
+            meals.forEach(journal::append);
+        }
+        try (OrderJournal journal = open()) {
+            assertEquals(100, journal.getLastSequence());
+            assertEquals(100, journal.getDurableSequence());
+            assertEquals(meals, replay(journal, 1));
+        }
+    }
+
+    @Test
+    void replayStartsAtTheGivenSequence() throws IOException {
+        List<Meal> meals = meals(100);
+        try (OrderJournal journal = open()) {
+            meals.forEach(journal::append);
+            assertEquals(meals.subList(49, 100), replay(journal, 50));
+            assertEquals(List.of(), replay(journal, 101));
+        }
+    }
+
+    @Test
+    void awaitDurableWaitsForTheFlush() throws Exception {
+        try (OrderJournal journal = new OrderJournal(directory, SMALL_SEGMENT, 1, TimeUnit.HOURS)) {
+            long sequence = journal.append(meal(1));
+            journal.awaitDurable(sequence);
+            assertTrue(journal.getDurableSequence() >= sequence);
+        }
+    }
+
+    @Test
+    void tornTailIsDroppedAndAppendingContinues() throws IOException {
+        List<Meal> meals = meals(10);
+        try (OrderJournal journal = open()) {
+            meals.forEach(journal::append);
+        }
+        Path segment = segments().get(0);
+        int end = endOfRecords(segment);
+        // A record whose header made it to disk but whose payload and CRC did not.
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(JournalSegment.HEADER_SIZE + 3);
+            torn.putInt(40).putInt(0).putLong(11).putLong(System.currentTimeMillis()).put(new byte[]{1, 2, 3}).flip();
+            channel.write(torn, end);
+        }
+
+        try (OrderJournal journal = open()) {
+            assertEquals(10, journal.getLastSequence());
+            assertEquals(end, endOfRecords(segment), "the torn record must be zeroed");
+            assertEquals(11, journal.append(meal(11)));
+            meals.add(meal(11));
+        }
+        try (OrderJournal journal = open()) {
+            assertEquals(meals, replay(journal, 1));
+        }
+    }
+
+    @Test
+    void corruptRecordDropsItAndEverythingAfterIt() throws IOException {
+        List<Meal> meals = meals(300);
+        try (OrderJournal journal = open()) {
+            meals.forEach(journal::append);
+        }
+        List<Path> segments = segments();
+        assertTrue(segments.size() >= 3, "the test needs several segments, got " + segments.size());
+        // Flip one payload byte of the fifth record of the first segment.
+        Path first = segments.get(0);
+        int fifth = recordOffset(first, 4);
+        flipByte(first, fifth + JournalSegment.HEADER_SIZE + 1);
+
+        try (OrderJournal journal = open()) {
+            assertEquals(4, journal.getLastSequence());
+            assertEquals(meals.subList(0, 4), replay(journal, 1));
+            assertEquals(List.of(first), segments());
+            for (Path later : segments.subList(1, segments.size())) {
+                assertTrue(Files.exists(later.resolveSibling(later.getFileName() + ".corrupt")), later + " kept aside");
+            }
+            assertEquals(5, journal.append(meal(5)));
+        }
+    }
+
+    @Test
+    void missingSegmentEndsTheJournalBeforeTheGap() throws IOException {
+        List<Meal> meals = meals(300);
+        try (OrderJournal journal = open()) {
+            meals.forEach(journal::append);
+        }
+        List<Path> segments = segments();
+        Files.delete(segments.get(1));
+        long secondStart = firstSequence(segments.get(1));
+
+        try (OrderJournal journal = open()) {
+            assertEquals(secondStart - 1, journal.getLastSequence());
+            assertEquals(meals.subList(0, (int) secondStart - 1), replay(journal, 1));
+            assertEquals(secondStart, journal.append(meal(0)));
+        }
+    }
+
+    @Test
+    void removingTheOldestSegmentsKeepsTheRest() throws IOException {
+        List<Meal> meals = meals(300);
+        try (OrderJournal journal = open()) {
+            meals.forEach(journal::append);
+        }
+        List<Path> segments = segments().stream().sorted(Comparator.comparingLong(OrderJournalTest::firstSequence)).toList();
+        assertTrue(segments.size() >= 3);
+        Files.delete(segments.get(0));
+        Files.delete(segments.get(1));
+        long thirdStart = firstSequence(segments.get(2));
+
+        try (OrderJournal journal = open()) {
+            assertEquals(300, journal.getLastSequence());
+            assertEquals(meals.subList((int) thirdStart - 1, 300), replay(journal, 1));
+            assertEquals(301, journal.append(meal(0)));
+        }
+    }
+
+    @Test
+    void interruptingTheFlusherFailsAwaitDurable() throws Exception {
+        OrderJournal journal = new OrderJournal(directory, SMALL_SEGMENT, 1, TimeUnit.HOURS);
+        Thread flusher = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("order-journal-flusher"))
+                .findFirst()
+                .orElseThrow();
+        flusher.interrupt();
+        flusher.join(10_000);
+        assertFalse(flusher.isAlive());
+        long sequence = journal.append(meal(1));
+        // Without the flusher the order never becomes durable; waiting for it must fail instead of hanging.
+        assertThrows(InterruptedIOException.class, () -> journal.awaitDurable(sequence));
+        assertThrows(InterruptedIOException.class, journal::close);
+    }
+
+    private OrderJournal open() throws IOException {
+        return new OrderJournal(directory, SMALL_SEGMENT, 1, TimeUnit.MILLISECONDS);
+    }
+
+    private static List<Meal> meals(int count) {
+        List<Meal> meals = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            meals.add(meal(i));
+        }
+        return meals;
+    }
+
+    private static Meal meal(int i) {
+        return new Meal.MealBuilder("Main " + i).withDrink(i % 3 == 0 ? null : "Drink " + i).withDessert("Dessert " + i).build();
+    }
+
+    private static List<Meal> replay(OrderJournal journal, long fromSequence) {
+        List<Meal> replayed = new ArrayList<>();
+        journal.replay(fromSequence, (sequence, timestamp, meal) -> replayed.add(meal));
+        return replayed;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        return JournalSegment.firstSequenceOf(segment);
+    }
+
+    // The segment is zero behind its last record, so the records end after the last non-zero byte of the last record.
+    private static int endOfRecords(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int position = 0;
+        while (position + JournalSegment.HEADER_SIZE <= buffer.limit() && buffer.getInt(position) != 0) {
+            position += JournalSegment.HEADER_SIZE + buffer.getInt(position);
+        }
+        return position;
+    }
+
+    private static int recordOffset(Path segment, int index) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int position = 0;
+        for (int i = 0; i < index; i++) {
+            position += JournalSegment.HEADER_SIZE + buffer.getInt(position);
+        }
+        return position;
+    }
+
+    private static void flipByte(Path file, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            one.put(0, (byte) (one.get(0) ^ 0x40)).rewind();
+            channel.write(one, position);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package designpatterns.creationalpattern.restaurantapp.kitchen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for batching and closing the {@link KitchenScheduler}.
+ */
+class KitchenSchedulerTest {
+
+    @Test
+    void identicalDishesAreCookedInBatches() throws Exception {
+        CountingKitchen kitchen = new CountingKitchen();
+        List<CompletableFuture<Void>> orders = new ArrayList<>();
+        try (KitchenScheduler scheduler = new KitchenScheduler(100, 100)) {
+            kitchen.gate.countDown();
+            for (int i = 0; i < 50; i++) {
+                orders.add(scheduler.submit(kitchen));
+            }
+            CompletableFuture.allOf(orders.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(50, kitchen.portions.get());
+        assertTrue(kitchen.cycles.get() < 50, "cycles " + kitchen.cycles.get());
+    }
+
+    @Test
+    void closeCancelsWaitingOrdersAndRejectsNewOnes() throws Exception {
+        CountingKitchen kitchen = new CountingKitchen();
+        KitchenScheduler scheduler = new KitchenScheduler(100, 1);
+        CompletableFuture<Void> cooking = scheduler.submit(kitchen);
+        kitchen.cooking.await(10, TimeUnit.SECONDS);
+        CompletableFuture<Void> waiting = scheduler.submit(kitchen);
+        Thread closer = Thread.ofPlatform().start(scheduler::close);
+        // The main course being cooked blocks close() until it is done.
+        Thread.sleep(20);
+        assertTrue(closer.isAlive());
+        kitchen.gate.countDown();
+        closer.join(10_000);
+        assertThrows(CancellationException.class, () -> waiting.get(10, TimeUnit.SECONDS));
+        assertTrue(cooking.isDone());
+        assertThrows(IllegalStateException.class, () -> scheduler.submit(kitchen));
+    }
+
+    @Test
+    void closeWaitsThroughAnInterruptAndRestoresIt() throws Exception {
+        CountingKitchen kitchen = new CountingKitchen();
+        KitchenScheduler scheduler = new KitchenScheduler(100, 1);
+        scheduler.submit(kitchen);
+        kitchen.cooking.await(10, TimeUnit.SECONDS);
+        AtomicInteger interruptedAfterClose = new AtomicInteger(-1);
+        Thread closer = Thread.ofPlatform().start(() -> {
+            scheduler.close();
+            interruptedAfterClose.set(Thread.currentThread().isInterrupted() ? 1 : 0);
+        });
+        Thread.sleep(20);
+        closer.interrupt();
+        Thread.sleep(20);
+        assertTrue(closer.isAlive(), "close() returned while a batch was still cooking");
+        kitchen.gate.countDown();
+        closer.join(10_000);
+        assertEquals(1, interruptedAfterClose.get());
+        assertEquals(1, kitchen.portions.get());
+    }
+
+    /**
+     * A restaurant whose main courses count the portions and batches cooked, and wait for the gate to open first.
+     */
+    private static final class CountingKitchen extends Restaurant {
+        final CountDownLatch gate = new CountDownLatch(1);
+        final CountDownLatch cooking = new CountDownLatch(1);
+        final AtomicInteger portions = new AtomicInteger();
+        final AtomicInteger cycles = new AtomicInteger();
+
+        @Override
+        public MealFactory getMealFactory() {
+            return new MealFactory() {
+                @Override
+                public MainCourse createMainCourse() {
+                    return new CountedMainCourse();
+                }
+
+                @Override
+                public Dessert createDessert() {
+                    return () -> {
+                    };
+                }
+            };
+        }
+
+        private final class CountedMainCourse implements MainCourse {
+            @Override
+            public void prepare() {
+                prepare(1);
+            }
+
+            @Override
+            public void prepare(int count) {
+                cooking.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                portions.addAndGet(count);
+                cycles.incrementAndGet();
+            }
+        }
+    }
+}
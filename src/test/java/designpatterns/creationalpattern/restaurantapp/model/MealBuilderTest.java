@@ -0,0 +1,44 @@
+package designpatterns.creationalpattern.restaurantapp.model;
+
+import designpatterns.creationalpattern.restaurantapp.analytics.MealColumn;
+import designpatterns.creationalpattern.restaurantapp.analytics.MealCodec;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests for reusing a {@link Meal.MealBuilder}, with {@link Meal.MealBuilder#reset(String)} and the per-thread builder.
+ */
+class MealBuilderTest {
+
+    @Test
+    void resetRestoresTheDefaults() {
+        Meal.MealBuilder builder = new Meal.MealBuilder("Pasta").withSideDish("Salad").withDrink("Wine").withDessert("Tiramisu");
+        Meal first = builder.build();
+        Meal second = builder.reset("Taco").build();
+        assertEquals("Pasta", first.getMainCourse());
+        assertEquals("Tiramisu", first.getDessert());
+        assertEquals("Taco", second.getMainCourse());
+        assertEquals("Fries", second.getSideDish());
+        assertEquals("Water", second.getDrink());
+        assertNull(second.getDessert());
+    }
+
+    @Test
+    void reusableHandsOutOneBuilderPerThread() {
+        assertSame(Meal.MealBuilder.reusable("Pasta"), Meal.MealBuilder.reusable("Taco"));
+    }
+
+    @Test
+    void decodingInsideAReusableChainDoesNotResetTheCallersBuilder() {
+        MealColumn column = new MealColumn(new MealCodec());
+        column.add(new Meal.MealBuilder("Taco").withDrink("Horchata").build());
+
+        Meal meal = Meal.MealBuilder.reusable("Burger").withDrink(column.get(0).getDrink()).build();
+
+        assertEquals("Burger", meal.getMainCourse());
+        assertEquals("Horchata", meal.getDrink());
+    }
+}
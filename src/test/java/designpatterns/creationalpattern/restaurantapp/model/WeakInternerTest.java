@@ -0,0 +1,137 @@
+package designpatterns.creationalpattern.restaurantapp.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link WeakInterner} and for interning {@link Meal}s with it.
+ */
+class WeakInternerTest {
+
+    @Test
+    void equalValuesShareTheFirstInstance() {
+        WeakInterner<String> interner = new WeakInterner<>();
+        AtomicInteger canonicalized = new AtomicInteger();
+        String first = new String("Pasta");
+        String second = new String("Pasta");
+        assertSame(first, interner.intern(first, value -> {
+            canonicalized.incrementAndGet();
+            return value;
+        }));
+        assertSame(first, interner.intern(second, value -> {
+            canonicalized.incrementAndGet();
+            return value;
+        }));
+        assertSame(first, interner.intern(second));
+        assertEquals(1, canonicalized.get());
+        assertEquals(1, interner.size());
+    }
+
+    @Test
+    void unreferencedValuesAreCollected() throws InterruptedException {
+        WeakInterner<String> interner = new WeakInterner<>();
+        String kept = interner.intern(new String("Taco"));
+        for (int i = 0; i < 1_000; i++) {
+            interner.intern(new String("Meal" + i));
+        }
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (interner.size() > 1 && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(1, interner.size());
+        assertSame(kept, interner.intern(new String("Taco")));
+        // A collected value can be interned again.
+        String again = new String("Meal7");
+        assertSame(again, interner.intern(again));
+        assertEquals(2, interner.size());
+    }
+
+    @Test
+    void racingThreadsGetTheSameInstance() throws InterruptedException {
+        WeakInterner<String> interner = new WeakInterner<>();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicReferenceArray<String> results = new AtomicReferenceArray<>(threads * 1_000);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 1_000; i++) {
+                        results.set(thread * 1_000 + i, interner.intern(new String("Meal" + i)));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertNull(failure.get());
+        for (int t = 1; t < threads; t++) {
+            for (int i = 0; i < 1_000; i++) {
+                assertSame(results.get(i), results.get(t * 1_000 + i));
+            }
+        }
+    }
+
+    @Test
+    void mealsAreEqualByTheirParts() {
+        Meal pasta = new Meal.MealBuilder("Pasta").withDessert("Tiramisu").build();
+        Meal samePasta = new Meal.MealBuilder("Pasta").withDessert("Tiramisu").build();
+        Meal noParts = new Meal.MealBuilder(null).withSideDish(null).withDrink(null).build();
+        assertEquals(pasta, samePasta);
+        assertEquals(pasta.hashCode(), samePasta.hashCode());
+        assertNotEquals(pasta, pasta.withDessert(null));
+        // Meals with only null parts hash to 0, which is also the "not computed yet" marker.
+        assertEquals(0, noParts.hashCode());
+        assertEquals(0, noParts.hashCode());
+        assertEquals(noParts, noParts.clone());
+        // "Aa" and "BB" have the same hash code, so the cached hashes match but the meals must not.
+        Meal aa = new Meal.MealBuilder("Aa").build();
+        Meal bb = new Meal.MealBuilder("BB").build();
+        assertEquals(aa.hashCode(), bb.hashCode());
+        assertNotEquals(aa, bb);
+    }
+
+    @Test
+    void internedMealsShareOneInstanceAndItsParts() {
+        boolean interning = Meal.isInterning();
+        Meal.setInterning(true);
+        try {
+            Meal first = new Meal.MealBuilder(new String("Churro")).withDrink(new String("Horchata")).build();
+            Meal second = new Meal.MealBuilder(new String("Churro")).withDrink(new String("Horchata")).build();
+            assertSame(first, second);
+            assertSame(first, first.clone());
+            assertSame(first, first.withDessert("Flan").withDessert(null));
+            Meal other = new Meal.MealBuilder("Taco").withDrink(new String("Horchata")).build();
+            assertSame(first.getDrink(), other.getDrink());
+            assertTrue(Meal.internedCount() >= 2);
+        } finally {
+            Meal.setInterning(interning);
+        }
+        Meal separate = new Meal.MealBuilder("Churro").withDrink("Horchata").build();
+        assertNotSame(separate, separate.clone());
+        assertEquals(separate, separate.clone());
+    }
+}
@@ -0,0 +1,110 @@
+package designpatterns.creationalpattern.restaurantapp.service;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the perfect-hash lookups of {@link CompiledMenu} and the {@link PerfectHash} behind them.
+ */
+class CompiledMenuTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void everyNameIsFoundAndOthersMiss() {
+        Map<String, Meal> meals = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            meals.put("MEAL_" + i, meal("Main" + i));
+        }
+        CompiledMenu menu = CompiledMenu.compile(new MenuSnapshot(1, meals));
+        for (int i = 0; i < 5_000; i++) {
+            int entry = menu.indexOf("MEAL_" + i);
+            assertEquals("MEAL_" + i, menu.nameAt(entry));
+            assertEquals("Main" + i, menu.mealAt(entry).getMainCourse());
+            assertEquals(entry, menu.indexOfIgnoreCase("meal_" + i));
+        }
+        assertEquals(-1, menu.indexOf("MEAL_5000"));
+        assertEquals(-1, menu.indexOf("meal_1"));
+        assertEquals(-1, menu.indexOfIgnoreCase("MEAL_-1"));
+    }
+
+    @Test
+    void nullMatchesNothing() {
+        CompiledMenu menu = CompiledMenu.compile(new MenuSnapshot(1, Map.of("TACO", meal("Taco"))));
+        assertEquals(-1, menu.indexOf(null));
+        assertEquals(-1, menu.indexOfIgnoreCase(null));
+    }
+
+    @Test
+    void anEmptyMenuFindsNothing() {
+        CompiledMenu menu = CompiledMenu.compile(new MenuSnapshot(1, Map.of()));
+        assertEquals(-1, menu.indexOf("TACO"));
+        assertEquals(-1, menu.indexOfIgnoreCase("TACO"));
+    }
+
+    @Test
+    void caseInsensitiveLookupFoldsLikeEqualsIgnoreCase() {
+        // U+10400 and U+10428 are the upper and lower case of a Deseret letter, each a surrogate pair.
+        String deseret = new String(Character.toChars(0x10400)) + "_BOWL";
+        Map<String, Meal> meals = Map.of(
+                "Crème Brûlée", meal("Crème"),
+                deseret, meal("Deseret"),
+                "Taco", meal("Taco"),
+                "TACO", meal("Big taco"));
+        CompiledMenu menu = CompiledMenu.compile(new MenuSnapshot(1, meals));
+        assertEquals("Crème Brûlée", menu.nameAt(menu.indexOfIgnoreCase("CRÈME BRÛLÉE")));
+        String lowerDeseret = new String(Character.toChars(0x10428)) + "_bowl";
+        assertTrue(lowerDeseret.equalsIgnoreCase(deseret));
+        assertEquals(CompiledMenu.foldedHash(deseret), CompiledMenu.foldedHash(lowerDeseret));
+        assertEquals(deseret, menu.nameAt(menu.indexOfIgnoreCase(lowerDeseret)));
+        // Of several names equal ignoring case, the exact one wins.
+        assertEquals("TACO", menu.nameAt(menu.indexOfIgnoreCase("TACO")));
+        assertEquals("Taco", menu.nameAt(menu.indexOfIgnoreCase("Taco")));
+        assertTrue(menu.nameAt(menu.indexOfIgnoreCase("taco")).equalsIgnoreCase("taco"));
+        // An unpaired surrogate folds as itself.
+        assertEquals(-1, menu.indexOfIgnoreCase("\uD801_BOWL"));
+    }
+
+    @Test
+    void aMappedMenuIsCompiledOnItsFirstLookup() throws IOException {
+        Path file = directory.resolve("menu.snapshot");
+        MenuSnapshotFile.write(file, new MenuSnapshot(1, Map.of("TACO", meal("Taco"), "PASTA", meal("Pasta"))));
+        CompiledMenu menu = CompiledMenu.compile(MenuSnapshotFile.read(file));
+        int entry = menu.indexOfIgnoreCase("pasta");
+        assertEquals("PASTA", menu.nameAt(entry));
+        Meal pasta = menu.mealAt(entry);
+        assertEquals("Pasta", pasta.getMainCourse());
+        assertSame(pasta, menu.mealAt(menu.indexOf("PASTA")));
+    }
+
+    @Test
+    void perfectHashGroupsEqualHashCodesInOneSlot() {
+        int[] hashes = {7, 42, 7, -3, Integer.MIN_VALUE, 42, 7};
+        PerfectHash table = PerfectHash.build(hashes);
+        for (int hash : new int[]{7, 42, -3, Integer.MIN_VALUE}) {
+            int slot = table.slotOf(hash);
+            assertTrue(slot >= 0 && slot < 4, "slot " + slot);
+            for (int i = table.groupStart(slot); i < table.groupEnd(slot); i++) {
+                assertEquals(hash, hashes[table.entryAt(i)]);
+            }
+        }
+        assertEquals(3, table.groupEnd(table.slotOf(7)) - table.groupStart(table.slotOf(7)));
+        assertEquals(-1, table.slotOf(8));
+        assertEquals(-1, PerfectHash.build(new int[0]).slotOf(7));
+    }
+
+    private static Meal meal(String mainCourse) {
+        return new Meal.MealBuilder(mainCourse).build();
+    }
+}
@@ -0,0 +1,92 @@
+package designpatterns.creationalpattern.restaurantapp.service;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import designpatterns.creationalpattern.snapshot.SnapshotHeader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for reading a menu snapshot through {@link MappedMenu}, including damaged files.
+ */
+class MappedMenuTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void mealsAreFoundAndDecodedOnce() throws IOException {
+        MenuSnapshot menu = MenuSnapshotFile.read(write(menu()));
+        assertEquals(3, menu.meals().size());
+        assertEquals(List.of("BURGER", "PASTA", "TACO"), List.copyOf(menu.meals().keySet()));
+        Meal pasta = menu.get("PASTA");
+        assertEquals("Salad", pasta.getSideDish());
+        assertEquals("Tiramisu", pasta.getDessert());
+        assertSame(pasta, menu.get("PASTA"));
+        assertNull(menu.get("SOUP"));
+    }
+
+    @Test
+    void aTruncatedOffsetTableIsRejectedOnOpen() throws IOException {
+        Path file = write(menu());
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, SnapshotHeader.SIZE + 6));
+        assertThrows(IOException.class, () -> MenuSnapshotFile.read(file));
+    }
+
+    @Test
+    void aDamagedEntryFailsOnlyTheLookupThatReadsIt() throws IOException {
+        Path file = write(menu());
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        // Entry 1 (PASTA): skip its name and make the main course longer than the entry.
+        int entry = buffer.getInt(SnapshotHeader.SIZE + 4);
+        int mainCourse = entry + 4 + buffer.getInt(entry);
+        buffer.putInt(mainCourse, 1000);
+        Files.write(file, bytes);
+
+        MenuSnapshot menu = MenuSnapshotFile.read(file);
+        assertThrows(IllegalStateException.class, () -> menu.get("PASTA"));
+        assertEquals("Taco", menu.get("TACO").getMainCourse());
+        assertEquals("Burger", menu.get("BURGER").getMainCourse());
+    }
+
+    @Test
+    void aDamagedNameFailsTheSearchThatComparesIt() throws IOException {
+        Path file = write(menu());
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(buffer.getInt(SnapshotHeader.SIZE + 4), -7);
+        Files.write(file, bytes);
+
+        MenuSnapshot menu = MenuSnapshotFile.read(file);
+        // PASTA is the middle entry, where every binary search starts.
+        assertThrows(IllegalStateException.class, () -> menu.get("TACO"));
+    }
+
+    private Path write(MenuSnapshot menu) throws IOException {
+        Path file = directory.resolve("menu.snapshot");
+        MenuSnapshotFile.write(file, menu);
+        return file;
+    }
+
+    private static MenuSnapshot menu() {
+        Map<String, Meal> meals = new LinkedHashMap<>();
+        meals.put("TACO", new Meal.MealBuilder("Taco").withDrink("Lemonade").build());
+        meals.put("PASTA", new Meal.MealBuilder("Pasta").withSideDish("Salad").withDessert("Tiramisu").build());
+        meals.put("BURGER", new Meal.MealBuilder("Burger").withSideDish("Fries").withDrink("Cola").build());
+        return new MenuSnapshot(1, meals);
+    }
+}
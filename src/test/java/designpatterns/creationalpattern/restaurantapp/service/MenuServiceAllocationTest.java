@@ -0,0 +1,74 @@
+package designpatterns.creationalpattern.restaurantapp.service;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a lookup in flyweight mode allocates nothing, using the per-thread allocation counter of HotSpot's
+ * {@link com.sun.management.ThreadMXBean}. {@code MenuLookupBenchmark} measures the same under JMH; this test keeps the
+ * guarantee from regressing between benchmark runs.
+ */
+class MenuServiceAllocationTest {
+    private static final int LOOKUPS = 100_000;
+    private static final int ROUNDS = 5;
+
+    // Lookups store their result here, so the JIT cannot drop them or their allocations.
+    private static Meal sink;
+
+    @Test
+    void flyweightLookupsAllocateNothing() {
+        MenuService menu = MenuService.getInstance();
+        boolean flyweight = menu.isFlyweightMode();
+        menu.setFlyweightMode(true);
+        try {
+            MealId mealId = menu.resolve("CHICKEN_BURGER");
+            assertEquals(0, bytesPerLookup(() -> menu.getMeal("CHICKEN_BURGER")), "getMeal(String)");
+            assertEquals(0, bytesPerLookup(() -> menu.getMealIgnoreCase("Chicken_Burger")), "getMealIgnoreCase");
+            assertEquals(0, bytesPerLookup(() -> menu.getMeal(mealId)), "getMeal(MealId)");
+            assertEquals(0, bytesPerLookup(() -> menu.getMeal("TOFU_BOWL")), "miss");
+        } finally {
+            menu.setFlyweightMode(flyweight);
+        }
+    }
+
+    @Test
+    void cloningLookupsAllocateAMealEach() {
+        MenuService menu = MenuService.getInstance();
+        boolean flyweight = menu.isFlyweightMode();
+        menu.setFlyweightMode(false);
+        try {
+            // Shows that the measurement sees allocations at all.
+            long bytes = bytesPerLookup(() -> menu.getMeal("CHICKEN_BURGER"));
+            assertTrue(bytes >= 16, "expected a Meal per lookup, measured " + bytes + " bytes");
+        } finally {
+            menu.setFlyweightMode(flyweight);
+        }
+    }
+
+    /**
+     * @return The bytes allocated per lookup in the best of several rounds, after a warm-up that lets the JIT compile
+     * the lookup.
+     */
+    private static long bytesPerLookup(Supplier<Meal> lookup) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < LOOKUPS * 5; i++) {
+            sink = lookup.get();
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < LOOKUPS; i++) {
+                sink = lookup.get();
+            }
+            best = Math.min(best, threads.getThreadAllocatedBytes(threadId) - before);
+        }
+        return best / LOOKUPS;
+    }
+}
@@ -0,0 +1,108 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+import designpatterns.creationalpattern.restaurantapp.kitchen.CuisineRegistry;
+import designpatterns.creationalpattern.restaurantapp.kitchen.Dessert;
+import designpatterns.creationalpattern.restaurantapp.kitchen.MainCourse;
+import designpatterns.creationalpattern.restaurantapp.kitchen.MealFactory;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the kitchen permits of {@link KitchenService}: bulk streams wait for a permit instead of failing, and together
+ * never put more orders into the kitchen than its capacity.
+ */
+class KitchenServiceTest {
+    private static final AtomicInteger COOKING = new AtomicInteger();
+    private static final AtomicInteger PEAK = new AtomicInteger();
+
+    static {
+        CuisineRegistry.register("Slow", new SlowMealFactory());
+    }
+
+    @Test
+    void bulkStreamsTogetherNeverExceedTheCapacity() throws Exception {
+        KitchenService kitchen = new KitchenService(2, 8, 1000, "");
+        try {
+            PEAK.set(0);
+            List<OrderConfirmation> confirmations = Flux.range(0, 3)
+                    .flatMap(stream -> kitchen.placeOrders(Flux.range(0, 30).map(i -> new OrderRequest("CHICKEN_BURGER", "Slow"))))
+                    .collectList()
+                    .block(Duration.ofSeconds(30));
+            assertNotNull(confirmations);
+            assertEquals(90, confirmations.size());
+            assertTrue(confirmations.stream().allMatch(confirmation -> confirmation.error() == null));
+            assertTrue(PEAK.get() <= 2, "peak " + PEAK.get());
+            assertEquals(0, kitchen.getOrdersInProgress());
+        } finally {
+            kitchen.destroy();
+        }
+    }
+
+    @Test
+    void aFailedOrderDoesNotEndTheStream() throws Exception {
+        KitchenService kitchen = new KitchenService(2, 2, 1000, "");
+        try {
+            List<OrderConfirmation> confirmations = kitchen.placeOrders(Flux.just(
+                            new OrderRequest("TOFU_BOWL", "Slow"),
+                            new OrderRequest("CHICKEN_BURGER", "Slow")))
+                    .collectList()
+                    .block(Duration.ofSeconds(10));
+            assertNotNull(confirmations);
+            assertEquals(2, confirmations.size());
+            assertEquals(1, confirmations.stream().filter(confirmation -> confirmation.error() != null).count());
+        } finally {
+            kitchen.destroy();
+        }
+    }
+
+    @Test
+    void cancelledWaitersGiveTheirPermitsBack() throws Exception {
+        KitchenService kitchen = new KitchenService(1, 4, 1000, "");
+        try {
+            // Take a few confirmations and cancel the rest of the stream, including orders still waiting for a permit.
+            List<OrderConfirmation> first = kitchen.placeOrders(Flux.range(0, 50).map(i -> new OrderRequest("CHICKEN_BURGER", "Slow")))
+                    .take(3)
+                    .collectList()
+                    .block(Duration.ofSeconds(10));
+            assertNotNull(first);
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (kitchen.getOrdersInProgress() != 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(0, kitchen.getOrdersInProgress());
+            OrderConfirmation next = kitchen.placeOrder(new OrderRequest("CHICKEN_BURGER", "Slow")).block(Duration.ofSeconds(10));
+            assertNotNull(next);
+            assertNull(next.error());
+        } finally {
+            kitchen.destroy();
+        }
+    }
+
+    private static final class SlowMealFactory implements MealFactory {
+        @Override
+        public MainCourse createMainCourse() {
+            return () -> {
+                int cooking = COOKING.incrementAndGet();
+                PEAK.accumulateAndGet(cooking, Math::max);
+                LockSupport.parkNanos(Duration.ofMillis(2).toNanos());
+                COOKING.decrementAndGet();
+            };
+        }
+
+        @Override
+        public Dessert createDessert() {
+            return () -> {
+            };
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package designpatterns.creationalpattern.restaurantapp.web;
+
+import designpatterns.creationalpattern.restaurantapp.model.Meal;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link MealBinaryFormat} and its {@link MealEncoder} and {@link MealDecoder}.
+ */
+class MealBinaryFormatTest {
+    private static final DefaultDataBufferFactory BUFFERS = DefaultDataBufferFactory.sharedInstance;
+    private static final ResolvableType MEAL_TYPE = ResolvableType.forClass(Meal.class);
+
+    @Test
+    void mealsSurviveTheRoundTripAndFillTheirFrameExactly() {
+        List<Meal> meals = List.of(
+                new Meal.MealBuilder("Pasta").withDessert("Tiramisu").build(),
+                new Meal.MealBuilder(null).withSideDish(null).withDrink(null).build(),
+                new Meal.MealBuilder("Crème Brûlée").withDrink("Café").build(),
+                new Meal.MealBuilder("寿司").withSideDish("Édamame 🍣").withDessert("🍡".repeat(100)).build(),
+                new Meal.MealBuilder("x".repeat(200)).withDrink("").build());
+        for (Meal meal : meals) {
+            byte[] frame = encode(meal);
+            assertEquals(MealBinaryFormat.frameSize(meal), frame.length, meal.toString());
+            DataBuffer buffer = BUFFERS.wrap(frame);
+            assertTrue(MealBinaryFormat.hasFrame(buffer));
+            assertEquals(meal, MealBinaryFormat.read(buffer));
+            assertEquals(0, buffer.readableByteCount());
+        }
+    }
+
+    @Test
+    void anUnpairedSurrogateIsWrittenAsAQuestionMark() {
+        for (String part : List.of("\uD83C", "a\uDF63b", "\uDF63\uD83C", "é\uD83C")) {
+            Meal meal = new Meal.MealBuilder(part).build();
+            byte[] frame = encode(meal);
+            assertEquals(MealBinaryFormat.frameSize(meal), frame.length, part);
+            Meal read = MealBinaryFormat.read(BUFFERS.wrap(frame));
+            assertEquals(part.replaceAll("\\p{Cs}", "?"), read.getMainCourse());
+        }
+    }
+
+    @Test
+    void aTruncatedFrameIsNotComplete() {
+        Meal meal = new Meal.MealBuilder("x".repeat(200)).withDessert("Flan").build();
+        byte[] frame = encode(meal);
+        // The frame length takes two bytes here, so prefixes of one byte end inside the varint.
+        for (int length = 0; length < frame.length; length++) {
+            assertFalse(MealBinaryFormat.hasFrame(BUFFERS.wrap(Arrays.copyOf(frame, length))), "prefix of " + length);
+        }
+        assertTrue(MealBinaryFormat.hasFrame(BUFFERS.wrap(frame)));
+        MealDecoder decoder = new MealDecoder();
+        assertThrows(DecodingException.class, () -> decoder.decode(BUFFERS.wrap(Arrays.copyOf(frame, frame.length - 1)),
+                MEAL_TYPE, MealBinaryFormat.MEDIA_TYPE, null));
+    }
+
+    @Test
+    void varintsBeyond31BitsAreRejected() {
+        DecodingException frameLength = assertThrows(DecodingException.class,
+                () -> MealBinaryFormat.hasFrame(BUFFERS.wrap(bytes(0xFF, 0xFF, 0xFF, 0xFF, 0x0F))));
+        assertTrue(frameLength.getMessage().contains("out of range"), frameLength.getMessage());
+        // The largest length that fits is accepted, and the frame is simply incomplete.
+        assertFalse(MealBinaryFormat.hasFrame(BUFFERS.wrap(bytes(0xFF, 0xFF, 0xFF, 0xFF, 0x07))));
+
+        DecodingException partLength = assertThrows(DecodingException.class,
+                () -> MealBinaryFormat.read(BUFFERS.wrap(bytes(5, 0xFF, 0xFF, 0xFF, 0xFF, 0x1F))));
+        assertTrue(partLength.getMessage().contains("out of range"), partLength.getMessage());
+    }
+
+    @Test
+    void partsMustFitTheirFrame() {
+        // A part of 9 bytes in a frame of 3.
+        DecodingException tooLong = assertThrows(DecodingException.class,
+                () -> MealBinaryFormat.read(BUFFERS.wrap(bytes(3, 10, 'a', 'b', 0, 0))));
+        assertTrue(tooLong.getMessage().contains("exceeds its frame"), tooLong.getMessage());
+        // A varint cut off by the end of the frame, although the bytes after it would complete it.
+        assertThrows(DecodingException.class, () -> MealBinaryFormat.read(BUFFERS.wrap(bytes(1, 0x81, 0x01, 0, 0, 0))));
+        // Four null parts and one byte left over.
+        DecodingException extra = assertThrows(DecodingException.class,
+                () -> MealBinaryFormat.read(BUFFERS.wrap(bytes(5, 0, 0, 0, 0, 7))));
+        assertTrue(extra.getMessage().contains("unexpected bytes"), extra.getMessage());
+    }
+
+    @Test
+    void theDecoderReadsAStreamSplitAnywhere() {
+        Meal pasta = new Meal.MealBuilder("Pasta").build();
+        Meal taco = new Meal.MealBuilder("Taco").withDessert("Churro").build();
+        byte[] first = encode(pasta);
+        byte[] second = encode(taco);
+        byte[] body = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, body, first.length, second.length);
+        MealDecoder decoder = new MealDecoder();
+        for (int split = 0; split <= body.length; split++) {
+            Flux<DataBuffer> chunks = Flux.just(Arrays.copyOfRange(body, 0, split), Arrays.copyOfRange(body, split, body.length))
+                    .map(BUFFERS::wrap);
+            List<Meal> meals = decoder.decode(chunks, MEAL_TYPE, MealBinaryFormat.MEDIA_TYPE, null)
+                    .collectList()
+                    .block(Duration.ofSeconds(5));
+            assertEquals(List.of(pasta, taco), meals);
+        }
+        Flux<DataBuffer> both = Flux.just(BUFFERS.wrap(body));
+        assertThrows(DecodingException.class,
+                () -> decoder.decodeToMono(both, MEAL_TYPE, MealBinaryFormat.MEDIA_TYPE, null).block(Duration.ofSeconds(5)));
+    }
+
+    private static byte[] encode(Meal meal) {
+        DataBuffer buffer = new MealEncoder().encodeValue(meal, BUFFERS, MEAL_TYPE, MealBinaryFormat.MEDIA_TYPE, null);
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        // The encoder allocates exactly the frame size; anything left would be wasted or overwritten.
+        assertEquals(bytes.length, buffer.capacity());
+        return bytes;
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
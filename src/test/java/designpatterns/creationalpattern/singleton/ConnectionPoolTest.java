@@ -0,0 +1,153 @@
+package designpatterns.creationalpattern.singleton;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for leasing from and releasing to a {@link ConnectionPool}, alone and under contention.
+ */
+class ConnectionPoolTest {
+
+    @Test
+    void aReleasedConnectionIsLeasedAgain() {
+        ConnectionPool pool = new ConnectionPool(1);
+        DBConnection first = pool.tryLease();
+        assertNotNull(first);
+        assertNull(pool.tryLease());
+        first.close();
+        assertFalse(first.isLeased());
+        DBConnection second = pool.tryLease();
+        assertNotNull(second);
+        assertEquals(first.getId(), second.getId());
+        assertEquals(1, pool.getCreatedCount());
+    }
+
+    @Test
+    void aStaleHandleCannotReleaseTheNextLease() {
+        ConnectionPool pool = new ConnectionPool(1);
+        DBConnection stale = pool.tryLease();
+        stale.close();
+        DBConnection current = pool.tryLease();
+        assertThrows(IllegalStateException.class, stale::close);
+        assertThrows(IllegalStateException.class, () -> stale.execute("SELECT 1"));
+        // The current lease is untouched: it still works and the connection is not handed out twice.
+        assertTrue(current.isLeased());
+        assertNull(pool.tryLease());
+        current.close();
+        assertThrows(IllegalStateException.class, current::close);
+        assertNotNull(pool.tryLease());
+    }
+
+    @Test
+    void aConnectionOfAnotherPoolIsRejected() {
+        ConnectionPool pool = new ConnectionPool(1);
+        DBConnection foreign = new ConnectionPool(1).tryLease();
+        assertThrows(IllegalArgumentException.class, () -> pool.release(foreign));
+        assertTrue(foreign.isLeased());
+    }
+
+    @Test
+    void leaseTimesOutWhenThePoolIsExhausted() {
+        ConnectionPool pool = new ConnectionPool(2);
+        pool.tryLease();
+        pool.tryLease();
+        assertThrows(TimeoutException.class, () -> pool.lease(5, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void noConnectionIsSharedUnderContention() throws Exception {
+        int size = 4;
+        int threads = 8;
+        int leasesPerThread = 20_000;
+        ConnectionPool pool = new ConnectionPool(size);
+        AtomicIntegerArray holders = new AtomicIntegerArray(size);
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    DBConnection previous = null;
+                    for (int i = 0; i < leasesPerThread; i++) {
+                        try (DBConnection connection = pool.lease(10, TimeUnit.SECONDS)) {
+                            if (holders.incrementAndGet(connection.getId()) != 1) {
+                                overlaps.incrementAndGet();
+                            }
+                            Thread.onSpinWait();
+                            holders.decrementAndGet(connection.getId());
+                        }
+                        if (previous != null && i % 100 == 0) {
+                            // A stale close must fail, whoever holds the connection now.
+                            DBConnection stale = previous;
+                            try {
+                                stale.close();
+                                overlaps.incrementAndGet();
+                            } catch (IllegalStateException expected) {
+                                // The lease was already released.
+                            }
+                        }
+                        previous = pool.tryLease();
+                        if (previous != null) {
+                            previous.close();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertNull(failure.get());
+        assertEquals(0, overlaps.get());
+        assertEquals(size, pool.getCreatedCount());
+        // Nothing was lost: every connection can be leased at once.
+        List<DBConnection> all = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            all.add(pool.lease(1, TimeUnit.SECONDS));
+        }
+        assertNull(pool.tryLease());
+        assertEquals(size, all.stream().map(DBConnection::getId).distinct().count());
+    }
+
+    @Test
+    void findLeaksListsOnlyLeasesHeldTooLong() throws InterruptedException {
+        ConnectionPool pool = new ConnectionPool(3);
+        DBConnection leaked = pool.tryLease();
+        DBConnection returned = pool.tryLease();
+        returned.close();
+        Thread.sleep(20);
+        DBConnection fresh = pool.tryLease();
+        List<DBConnection> leaks = pool.findLeaks(Duration.ofMillis(10));
+        assertEquals(1, leaks.size());
+        assertSame(leaked, leaks.get(0));
+        assertEquals(Thread.currentThread().getName(), leaked.leasedBy());
+        assertEquals(2, pool.findLeaks(Duration.ZERO).size());
+        leaked.close();
+        fresh.close();
+        assertTrue(pool.findLeaks(Duration.ZERO).isEmpty());
+    }
+}